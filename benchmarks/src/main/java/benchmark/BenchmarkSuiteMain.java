@@ -0,0 +1,26 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 저장소 예제 중 성능과 관련된 것들을 JMH로 측정한다. 주석에 적힌 주장 대신 숫자로 확인하기 위한 것이다.
+ * (예: Item63Main의 "길이 지정 방식이 성능이 제일 빠름")
+ *
+ * JMH의 명령행 옵션을 그대로 받고, 항상 GC 프로파일러(-prof gc)를 붙여 연산당 할당 바이트와 GC 횟수를 함께 출력한다.
+ *
+ * 사용법 : mvn package 후 java -jar benchmarks/target/benchmarks.jar [JMH 옵션] [벤치마크 이름 정규식]
+ */
+public class BenchmarkSuiteMain {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
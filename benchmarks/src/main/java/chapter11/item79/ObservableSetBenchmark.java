@@ -0,0 +1,101 @@
+package chapter11.item79;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item79 : 스냅샷 배열 ObservableSet vs CopyOnWriteArrayList ObservableSetV2, 옵저버 4개에게 알리는 비용.
+ *
+ * mode가 default이면 HashSet 위의 기본 집합이라 알림 비용만 잰다. concurrent이면 concurrent() 집합이라
+ * V2의 스트라이프 락 비용이 함께 들어간다. default 집합은 쓰레드 안전하지 않으므로 -t 1로만 돌린다.
+ * 집합이 끝없이 커지지 않도록 쓰레드마다 MAX_SIZE개를 넣을 때마다 비운다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(1)
+@State(Scope.Benchmark)
+public class ObservableSetBenchmark {
+
+    private static final int OBSERVERS = 4;
+    private static final int MAX_SIZE = 1 << 16;
+
+    @Param({"default", "concurrent"})
+    public String mode;
+
+    private ObservableSet<Long> set;
+    private ObservableSetV2<Long> setV2;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        boolean concurrent = mode.equals("concurrent");
+        set = concurrent ? ObservableSet.concurrent() : new ObservableSet<>(new HashSet<>());
+        setV2 = concurrent ? ObservableSetV2.concurrent() : new ObservableSetV2<>(new HashSet<>());
+        for (int i = 0; i < OBSERVERS; i++) {
+            set.addObserver((s, e) -> blackhole.consume(e));
+            setV2.addObserver((s, e) -> blackhole.consume(e));
+        }
+    }
+
+    // 매번 새로운 원소를 넣어야 알림이 일어난다. 쓰레드마다 겹치지 않는 번호를 쓴다
+    @State(Scope.Thread)
+    public static class Keys {
+
+        private long next;
+        private int stride;
+        private int added;
+
+        @Setup
+        public void setUp(ThreadParams threadParams) {
+            next = threadParams.getThreadIndex();
+            stride = threadParams.getThreadCount();
+        }
+
+        long next() {
+            long key = next;
+            next += stride;
+            return key;
+        }
+
+        boolean full() {
+            if (++added < MAX_SIZE) {
+                return false;
+            }
+            added = 0;
+            return true;
+        }
+    }
+
+    @Benchmark
+    public boolean observableSetAdd(Keys keys) {
+        if (keys.full()) {
+            set.clear();
+        }
+        return set.add(keys.next());
+    }
+
+    @Benchmark
+    public boolean observableSetV2Add(Keys keys) {
+        if (keys.full()) {
+            setV2.clear();
+        }
+        return setV2.add(keys.next());
+    }
+}
@@ -0,0 +1,65 @@
+package chapter11.item81;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item81 : putIfAbsent만 쓰는 intern vs get을 먼저 하는 internV2. 키는 모두 한번 넣어둔 뒤라 조회 경로만 잰다.
+ * 경쟁이 있을 때의 차이는 -t 옵션으로 쓰레드 수를 늘려 본다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class InternBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class Keys {
+
+        private final String[] keys = new String[KEYS];
+
+        @Setup
+        public void setUp() {
+            for (int i = 0; i < KEYS; i++) {
+                keys[i] = "key-" + i;
+                Item81Main.internV2(keys[i]);
+            }
+        }
+    }
+
+    // 쓰레드마다 키를 차례로 돈다
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        String next(Keys keys) {
+            String key = keys.keys[next];
+            next = next + 1 == KEYS ? 0 : next + 1;
+            return key;
+        }
+    }
+
+    @Benchmark
+    public String intern(Keys keys, Cursor cursor) {
+        return Item81Main.intern(cursor.next(keys));
+    }
+
+    @Benchmark
+    public String internV2(Keys keys, Cursor cursor) {
+        return Item81Main.internV2(cursor.next(keys));
+    }
+}
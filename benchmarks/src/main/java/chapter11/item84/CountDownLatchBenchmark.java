@@ -0,0 +1,39 @@
+package chapter11.item84;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item84 : 경쟁이 없을 때 래치를 만들고 열고 통과하는 비용. 대기 쓰레드가 많을 때는 LatchBenchmarkMain을 본다
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CountDownLatchBenchmark {
+
+    @Benchmark
+    public SlowCountDownLatch slowCountDownLatch() {
+        SlowCountDownLatch latch = new SlowCountDownLatch(1);
+        latch.countDown();
+        latch.await();
+        return latch;
+    }
+
+    @Benchmark
+    public CountDownLatch countDownLatch() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        latch.countDown();
+        latch.await();
+        return latch;
+    }
+}
@@ -0,0 +1,92 @@
+package chapter5.item26;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 원소 1000개를 add로 넣고(연산 하나), addAll로 넣는 비용을 ArrayList, Collections.checkedList, CheckedList로 비교한다.
+ * String은 final 타입, Number는 final이 아닌 타입(원소는 Integer)의 경우다.
+ *
+ * 한 JVM에서 여러 List 구현을 돌리면 앞선 측정이 list.add 호출 지점의 타입 프로파일을 오염시킨다.
+ * impl마다 따로 fork 되므로 측정끼리 섞이지 않는다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class CheckedListBenchmark {
+
+    private static final int ELEMENTS = 1000;
+
+    @Param({"ArrayList", "checkedList", "CheckedList"})
+    public String impl;
+
+    private List<String> strings;
+    private List<Number> numbers;
+    private List<String> stringList;
+    private List<Number> numberList;
+
+    @Setup
+    public void setUp() {
+        strings = new ArrayList<>();
+        numbers = new ArrayList<>();
+        for (int i = 0; i < ELEMENTS; i++) {
+            strings.add("element-" + i);
+            numbers.add(i);
+        }
+        stringList = list(String.class);
+        numberList = list(Number.class);
+    }
+
+    private <E> List<E> list(Class<E> type) {
+        switch (impl) {
+            case "ArrayList":
+                return new ArrayList<>(ELEMENTS);
+            case "checkedList":
+                return Collections.checkedList(new ArrayList<>(ELEMENTS), type);
+            default:
+                return CheckedList.wrap(new ArrayList<>(ELEMENTS), type);
+        }
+    }
+
+    @Benchmark
+    public List<String> addString() {
+        stringList.clear();
+        for (int j = 0; j < ELEMENTS; j++) {
+            stringList.add(strings.get(j));
+        }
+        return stringList;
+    }
+
+    @Benchmark
+    public List<Number> addNumber() {
+        numberList.clear();
+        for (int j = 0; j < ELEMENTS; j++) {
+            numberList.add(numbers.get(j));
+        }
+        return numberList;
+    }
+
+    @Benchmark
+    public List<Number> addAllNumber() {
+        numberList.clear();
+        numberList.addAll(numbers);
+        return numberList;
+    }
+}
@@ -0,0 +1,86 @@
+package chapter5.item27;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * String 리스트를 String[]로 만드는 방법들을 비교한다.
+ * toArray(new String[0]) / 크기를 맞춘 toArray(new String[size]) / Item27Main의 Arrays.copyOf(.., a.getClass()) /
+ * TypedArrayBuilder에 하나씩 add (기본 용량, 크기를 맞춘 용량) / TypedArrayBuilder.addAll
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TypedArrayBuilderBenchmark {
+
+    @Param({"16", "1000"})
+    public int size;
+
+    private List<String> list;
+    private Object[] elements;
+    private final String[] empty = new String[0];
+
+    @Setup
+    public void setUp() {
+        list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add("element-" + i);
+        }
+        elements = list.toArray();
+    }
+
+    @Benchmark
+    public String[] toArrayEmpty() {
+        return list.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public String[] toArrayPresized() {
+        return list.toArray(new String[list.size()]);
+    }
+
+    @Benchmark
+    public String[] arraysCopyOf() {
+        return Arrays.copyOf(elements, elements.length, empty.getClass());
+    }
+
+    @Benchmark
+    public String[] builderAdd() {
+        TypedArrayBuilder<String> builder = TypedArrayBuilder.of(String[]::new);
+        for (int j = 0; j < size; j++) {
+            builder.add(list.get(j));
+        }
+        return builder.toArray();
+    }
+
+    @Benchmark
+    public String[] builderAddPresized() {
+        TypedArrayBuilder<String> builder = TypedArrayBuilder.of(String[]::new, size);
+        for (int j = 0; j < size; j++) {
+            builder.add(list.get(j));
+        }
+        return builder.toArray();
+    }
+
+    @Benchmark
+    public String[] builderAddAll() {
+        return TypedArrayBuilder.of(String[]::new, size).addAll(list).toArray();
+    }
+}
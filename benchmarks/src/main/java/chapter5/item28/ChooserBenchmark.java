@@ -0,0 +1,73 @@
+package chapter5.item28;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item28 : Object[] vs T[] vs List<T> vs 타입이 있는 T[] vs int[] 에서 무작위로 고르기.
+ * ChooserV4와 IntChooser는 둘 다 int를 돌려주므로 결과를 받는 비용이 같다 (ChooserV4는 언박싱)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ChooserBenchmark {
+
+    private Item28Main.ChooserV1 chooserV1;
+    private Item28Main.ChooserV2<Integer> chooserV2;
+    private Item28Main.ChooserV3<Integer> chooserV3;
+    private Item28Main.ChooserV4<Integer> chooserV4;
+    private Item28Main.IntChooser intChooser;
+
+    @Setup
+    public void setUp() {
+        List<Integer> choices = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            choices.add(i);
+        }
+        chooserV1 = new Item28Main.ChooserV1(choices);
+        chooserV2 = new Item28Main.ChooserV2<>(choices);
+        chooserV3 = new Item28Main.ChooserV3<>(choices);
+        chooserV4 = new Item28Main.ChooserV4<>(choices, Integer[]::new);
+        intChooser = new Item28Main.IntChooser(choices.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    @Benchmark
+    public Object chooserV1() {
+        return chooserV1.choose();
+    }
+
+    @Benchmark
+    public Object chooserV2() {
+        return chooserV2.choose();
+    }
+
+    @Benchmark
+    public Object chooserV3() {
+        return chooserV3.choose();
+    }
+
+    @Benchmark
+    public int chooserV4() {
+        return chooserV4.choose();
+    }
+
+    @Benchmark
+    public int intChooser() {
+        return intChooser.choose();
+    }
+}
@@ -0,0 +1,70 @@
+package chapter9.item65;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Constructor;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * HashSet 하나를 만드는 비용을 비교한다.
+ * new / 캐시된 Supplier / 레지스트리 조회 + Supplier / Constructor.newInstance / reflection1처럼 매번 Class.forName
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class SetFactoryBenchmark {
+
+    private static final String CLASS_NAME = "java.util.HashSet";
+
+    private SetFactoryRegistry registry;
+    private Supplier<Set<String>> supplier;
+    private Constructor<? extends Set<String>> constructor;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        registry = new SetFactoryRegistry();
+        supplier = registry.supplier(CLASS_NAME);
+        constructor = (Constructor<? extends Set<String>>) Class.forName(CLASS_NAME).getDeclaredConstructor();
+    }
+
+    @Benchmark
+    public Set<String> newHashSet() {
+        return new HashSet<>();
+    }
+
+    @Benchmark
+    public Set<String> cachedSupplier() {
+        return supplier.get();
+    }
+
+    @Benchmark
+    public Set<String> registryNewSet() throws SetFactoryException {
+        return registry.newSet(CLASS_NAME);
+    }
+
+    @Benchmark
+    public Set<String> constructorNewInstance() throws ReflectiveOperationException {
+        return constructor.newInstance();
+    }
+
+    @Benchmark
+    public Object classForNameNewInstance() throws ReflectiveOperationException {
+        return Class.forName(CLASS_NAME).getDeclaredConstructor().newInstance();
+    }
+}
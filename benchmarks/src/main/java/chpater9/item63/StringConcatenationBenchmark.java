@@ -0,0 +1,57 @@
+package chpater9.item63;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item63 : 문자열 += 연결(statement) vs StringBuilder(statement2) vs 길이를 먼저 구하는 StringAssembler(statement3)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class StringConcatenationBenchmark {
+
+    @Param({"10", "100"})
+    public int items;
+
+    private List<String> itemNameList;
+
+    @Setup
+    public void setUp() {
+        itemNameList = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            itemNameList.add("item-" + i);
+        }
+    }
+
+    @Benchmark
+    public String statement() {
+        return Item63Main.statement(itemNameList);
+    }
+
+    @Benchmark
+    public String statement2() {
+        return Item63Main.statement2(itemNameList);
+    }
+
+    @Benchmark
+    public String statement3() {
+        return Item63Main.statement3(itemNameList);
+    }
+}
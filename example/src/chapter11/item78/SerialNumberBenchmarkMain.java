@@ -0,0 +1,54 @@
+package chapter11.item78;
+
+import chapter11.item81.Item81Main;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * StopThreadV4Main.generateSerialNumber(AtomicLong 하나)와 BlockSerialNumberGenerator를
+ * 쓰레드 수를 늘려가며 비교한다. 결과는 번호 하나를 발급하는 데 걸린 평균 시간(ns)이다.
+ */
+public class SerialNumberBenchmarkMain {
+
+    private static final int ITERATIONS_PER_THREAD = 2_000_000;
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    public static void main(String[] args) throws InterruptedException {
+        BlockSerialNumberGenerator block64 = BlockSerialNumberGenerator.withBlockSize(64);
+        BlockSerialNumberGenerator block1024 = BlockSerialNumberGenerator.withBlockSize(1024);
+
+        System.out.println("threads,atomicLong(ns/op),block64(ns/op),block1024(ns/op)");
+        for (int threads : THREAD_COUNTS) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                measure(executor, threads, StopThreadV4Main::generateSerialNumber); // 워밍업
+
+                double atomicLong = measure(executor, threads, StopThreadV4Main::generateSerialNumber);
+                double block64Ns = measure(executor, threads, block64::generateSerialNumber);
+                double block1024Ns = measure(executor, threads, block1024::generateSerialNumber);
+
+                System.out.printf("%d,%.2f,%.2f,%.2f%n", threads, atomicLong, block64Ns, block1024Ns);
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private static double measure(ExecutorService executor, int threads, Generator generator) throws InterruptedException {
+        long[] sink = new long[threads]; // JIT가 발급 코드를 지우지 못하게 결과를 남긴다
+        long nanos = Item81Main.time(executor, threads, () -> {
+            long sum = 0;
+            for (int i = 0; i < ITERATIONS_PER_THREAD; i++) {
+                sum += generator.generate();
+            }
+            sink[(int) (Thread.currentThread().getId() % threads)] = sum;
+        });
+        return (double) nanos / ITERATIONS_PER_THREAD; // 모든 쓰레드가 동시에 돌기 때문에 쓰레드당 시간으로 본다
+    }
+
+    @FunctionalInterface
+    private interface Generator {
+        long generate();
+    }
+}
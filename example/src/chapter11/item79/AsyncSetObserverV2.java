@@ -0,0 +1,275 @@
+package chapter11.item79;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 옵저버 호출을 쓰는 쓰레드 밖으로 옮긴다.
+ * 옵저버마다 크기가 제한된 큐와 전용 쓰레드를 하나씩 두고, 쌓인 이벤트를 배치로 꺼내 전달한다.
+ * 느린 옵저버가 있어도 add를 호출한 쓰레드는 멈추지 않고, 큐가 넘친 횟수만 카운터로 남는다.
+ *
+ * 옵저버는 항상 한번에 한 쓰레드에서, 큐에 들어온 순서대로 호출된다. 전달은 deliveryLock을 잡고 하므로
+ * CALLER_RUNS로 쓰는 쓰레드가 직접 전달할 때도 전달 쓰레드와 동시에 호출되지 않는다.
+ * ObservableSetV2.removeObserver로 제거하면 close 된다. close는 남은 이벤트를 호출한 쓰레드에서 모두 전달한 뒤 전달 쓰레드를 멈춘다.
+ */
+public class AsyncSetObserverV2<E> implements SetObserverV2<E>, AutoCloseable {
+
+    private final ObservableSetV2<E> set;
+    private final SetObserverV2<E> delegate;
+    private final BlockingQueue<Event<E>> queue;
+    private final int maxBatchSize;
+    private final BackpressurePolicy policy;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "async-set-observer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong overflowCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private final ReentrantLock deliveryLock = new ReentrantLock(); // 이 락을 잡은 쓰레드만 큐에서 꺼내 전달한다
+    private volatile boolean closed;
+
+    AsyncSetObserverV2(ObservableSetV2<E> set, SetObserverV2<E> delegate,
+                       int capacity, int maxBatchSize, BackpressurePolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(capacity + " <= 0");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException(maxBatchSize + " <= 0");
+        }
+        this.set = set;
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.policy = policy;
+        worker.execute(this::drainLoop);
+    }
+
+    // 큐에 쌓이는 이벤트. 받은 호출 하나가 이벤트 하나이고, 전달할 때도 같은 메소드 하나로 전달한다
+    private static final class Event<E> {
+
+        enum Type { ADDED, ADDED_ALL, REMOVED, REMOVED_ALL, CLEARED }
+
+        private final Type type;
+        private final E element;
+        private final List<E> elements; // ADDED_ALL, REMOVED_ALL일 때만 쓴다
+        private final long sequence; // 배치 이벤트라면 첫 원소의 순번
+
+        Event(Type type, E element, List<E> elements, long sequence) {
+            this.type = type;
+            this.element = element;
+            this.elements = elements;
+            this.sequence = sequence;
+        }
+    }
+
+    @Override
+    public void added(ObservableSetV2<E> s, E element) {
+        added(s, element, s.getSequence());
+    }
+
+    @Override
+    public void added(ObservableSetV2<E> s, E element, long sequence) {
+        enqueue(new Event<>(Event.Type.ADDED, element, null, sequence));
+    }
+
+    // addAll 한번은 이벤트 하나로 넣는다. 원소마다 큐 자리를 차지하지 않는다
+    @Override
+    public void addedAll(ObservableSetV2<E> s, Collection<E> elements, long firstSequence) {
+        enqueue(new Event<>(Event.Type.ADDED_ALL, null, copyOf(elements), firstSequence));
+    }
+
+    @Override
+    public void removed(ObservableSetV2<E> s, E element, long sequence) {
+        enqueue(new Event<>(Event.Type.REMOVED, element, null, sequence));
+    }
+
+    @Override
+    public void removedAll(ObservableSetV2<E> s, Collection<E> elements, long firstSequence) {
+        enqueue(new Event<>(Event.Type.REMOVED_ALL, null, copyOf(elements), firstSequence));
+    }
+
+    @Override
+    public void cleared(ObservableSetV2<E> s, long sequence) {
+        enqueue(new Event<>(Event.Type.CLEARED, null, null, sequence));
+    }
+
+    // 전달은 나중에 다른 쓰레드에서 하므로 호출한 쪽의 컬렉션을 그대로 들고 있지 않는다 (null 원소도 담을 수 있어야 한다)
+    private static <E> List<E> copyOf(Collection<E> elements) {
+        return Collections.unmodifiableList(new ArrayList<>(elements));
+    }
+
+    private void enqueue(Event<E> event) {
+        if (closed) {
+            droppedCount.incrementAndGet();
+            return;
+        }
+        insert(event);
+        // close가 큐를 비운 뒤에 들어간 이벤트는 아무도 꺼내지 않는다. 직접 빼고 버린 것으로 센다
+        if (closed && queue.remove(event)) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    private void insert(Event<E> event) {
+        if (queue.offer(event)) {
+            return;
+        }
+        overflowCount.incrementAndGet(); // 쓰는 쪽에는 멈춤 대신 지표만 남긴다
+
+        switch (policy) {
+            case BLOCK:
+                try {
+                    queue.put(event);
+                } catch (InterruptedException e) {
+                    droppedCount.incrementAndGet();
+                    Thread.currentThread().interrupt();
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(event)) {
+                    if (queue.poll() != null) {
+                        droppedCount.incrementAndGet();
+                    }
+                }
+                break;
+            case CALLER_RUNS:
+                callerRuns(event);
+                break;
+        }
+    }
+
+    /**
+     * 전달 락을 얻으면 큐에 쌓인 이벤트를 먼저 모두 전달한 뒤 이 이벤트를 전달한다. 순서와 단일 쓰레드 호출이 모두 지켜진다.
+     * 전달 쓰레드가 락을 잡고 있으면 큐에 자리가 나기를 잠깐 기다렸다가 다시 시도한다.
+     * (전달 쓰레드는 락을 잡은 채로 빈 큐를 기다릴 수 있으므로 락을 무작정 기다리면 안 된다)
+     */
+    private void callerRuns(Event<E> event) {
+        while (true) {
+            if (deliveryLock.tryLock()) {
+                try {
+                    if (!queue.offer(event)) {
+                        List<Event<E>> pending = new ArrayList<>(queue.size());
+                        queue.drainTo(pending);
+                        pending.add(event);
+                        deliverAll(pending);
+                    }
+                } finally {
+                    deliveryLock.unlock();
+                }
+                return;
+            }
+            try {
+                if (queue.offer(event, 1, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                droppedCount.incrementAndGet();
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // 꺼내기와 전달을 모두 전달 락 안에서 한다. 꺼낸 이벤트를 전달하기 전에 다른 쓰레드가 뒤의 이벤트를 먼저 전달할 수 없다
+    private void drainLoop() {
+        List<Event<E>> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                deliveryLock.lockInterruptibly();
+                try {
+                    batch.add(queue.take()); // 이벤트가 올 때까지 대기
+                    queue.drainTo(batch, maxBatchSize - 1); // 이미 쌓여있는 이벤트는 한번에 꺼낸다
+                    deliverAll(batch);
+                } finally {
+                    batch.clear();
+                    deliveryLock.unlock();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 이벤트를 받은 그대로 하나씩 전달한다. 따로 들어온 add들을 addedAll 하나로 합치지 않는다
+    private void deliverAll(List<Event<E>> batch) {
+        for (Event<E> event : batch) {
+            deliver(event);
+        }
+    }
+
+    private void deliver(Event<E> event) {
+        try {
+            switch (event.type) {
+                case ADDED:
+                    delegate.added(set, event.element, event.sequence);
+                    break;
+                case ADDED_ALL:
+                    delegate.addedAll(set, event.elements, event.sequence);
+                    break;
+                case REMOVED:
+                    delegate.removed(set, event.element, event.sequence);
+                    break;
+                case REMOVED_ALL:
+                    delegate.removedAll(set, event.elements, event.sequence);
+                    break;
+                case CLEARED:
+                    delegate.cleared(set, event.sequence);
+                    break;
+            }
+        } catch (Throwable e) {
+            // 옵저버가 Error(AssertionError 등)를 던져도 전달 쓰레드는 살아있어야 한다. 죽으면 BLOCK으로 쓰는 쓰레드가 영원히 멈춘다
+            failedCount.incrementAndGet();
+        }
+    }
+
+    public SetObserverV2<E> getDelegate() {
+        return delegate;
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    // 전달 쓰레드를 멈추고, 큐에 남은 이벤트는 호출한 쓰레드에서 모두 전달한다. 그 뒤에 오는 이벤트는 버려진다(dropped)
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        worker.shutdownNow(); // 빈 큐를 기다리던 전달 쓰레드는 락을 놓고 끝난다. 전달 중이었다면 그 배치까지만 전달한다
+        deliveryLock.lock();
+        try {
+            List<Event<E>> pending = new ArrayList<>(queue.size());
+            queue.drainTo(pending);
+            deliverAll(pending);
+        } finally {
+            deliveryLock.unlock();
+        }
+    }
+}
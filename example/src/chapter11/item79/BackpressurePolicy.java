@@ -0,0 +1,11 @@
+package chapter11.item79;
+
+/**
+ * 비동기 옵저버의 큐가 가득 찼을 때 쓰는 쪽(add를 호출한 쓰레드)이 취할 행동
+ */
+public enum BackpressurePolicy {
+
+    BLOCK,       // 큐에 자리가 날 때까지 쓰는 쓰레드가 대기한다
+    DROP_OLDEST, // 가장 오래된 이벤트를 버리고 새 이벤트를 넣는다
+    CALLER_RUNS  // 쓰는 쓰레드가 쌓인 이벤트와 새 이벤트를 직접 전달한다. 순서와 한번에 한 쓰레드 호출은 지켜진다
+}
@@ -0,0 +1,340 @@
+package chapter11.item79;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * int 전용 ObservableSet. Integer 박싱과 HashSet의 노드 없이 int[] 하나에 개방 주소법(선형 탐사)으로 저장한다.
+ * add(int), contains(int), remove(int)와 옵저버 알림은 객체를 할당하지 않는다.
+ * Set<Integer>도 구현하므로 기존 Set API로도 쓸 수 있지만 그 경로는 박싱이 일어난다.
+ * HashSet처럼 쓰기는 동기화되지 않는다.
+ */
+public class IntObservableSet extends AbstractSet<Integer> {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final IntSetObserver[] NO_OBSERVERS = {};
+
+    private int[] keys; // 0은 빈 칸을 뜻한다. 원소 0은 hasZero로 따로 관리한다
+    private int mask;
+    private int maxFill;
+    private boolean hasZero;
+    private int size;
+
+    private volatile IntSetObserver[] observers = NO_OBSERVERS;
+
+    public IntObservableSet() {
+        this(16);
+    }
+
+    public IntObservableSet(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException(expectedSize + " < 0");
+        }
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(expectedSize / (double) LOAD_FACTOR) + 1;
+        if (needed > MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Math.max(2, Integer.highestOneBit((int) needed - 1) << 1);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        mask = capacity - 1;
+        maxFill = Math.min(capacity - 1, (int) (capacity * LOAD_FACTOR));
+    }
+
+    private static int mix(int x) {
+        int h = x * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    public synchronized void addObserver(IntSetObserver observer) {
+        Objects.requireNonNull(observer);
+        IntSetObserver[] next = Arrays.copyOf(observers, observers.length + 1);
+        next[observers.length] = observer;
+        observers = next;
+    }
+
+    public synchronized boolean removeObserver(IntSetObserver observer) {
+        IntSetObserver[] current = observers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].equals(observer)) {
+                IntSetObserver[] next = Arrays.copyOf(current, current.length - 1);
+                System.arraycopy(current, i + 1, next, i, next.length - i);
+                observers = next;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean add(int element) {
+        if (!insert(element)) {
+            return false;
+        }
+        for (IntSetObserver observer : observers) { // 배열 순회이므로 Iterator도 할당하지 않는다
+            observer.added(this, element);
+        }
+        return true;
+    }
+
+    private boolean insert(int element) {
+        if (element == 0) {
+            if (hasZero) {
+                return false;
+            }
+            hasZero = true;
+        } else {
+            int pos = mix(element) & mask;
+            int curr;
+            while ((curr = keys[pos]) != 0) {
+                if (curr == element) {
+                    return false;
+                }
+                pos = (pos + 1) & mask;
+            }
+            // 더 늘릴 수 없는 표에서 마지막 빈 칸까지 채우면 이후의 탐사가 끝나지 않는다. 빈 칸은 항상 하나 이상 남긴다
+            if (size - (hasZero ? 1 : 0) >= keys.length - 1) {
+                throw new IllegalStateException("IntObservableSet is full : " + size);
+            }
+            keys[pos] = element;
+        }
+        if (++size > maxFill && keys.length < MAX_CAPACITY) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        int[] old = keys;
+        allocate(capacity);
+        for (int key : old) {
+            if (key != 0) {
+                int pos = mix(key) & mask;
+                while (keys[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = key;
+            }
+        }
+    }
+
+    public boolean contains(int element) {
+        if (element == 0) {
+            return hasZero;
+        }
+        int pos = mix(element) & mask;
+        int curr;
+        while ((curr = keys[pos]) != 0) {
+            if (curr == element) {
+                return true;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean remove(int element) {
+        if (element == 0) {
+            if (!hasZero) {
+                return false;
+            }
+            hasZero = false;
+        } else {
+            int pos = mix(element) & mask;
+            int curr;
+            while ((curr = keys[pos]) != element) {
+                if (curr == 0) {
+                    return false;
+                }
+                pos = (pos + 1) & mask;
+            }
+            shiftKeys(pos, null);
+        }
+        size--;
+        notifyRemoved(element);
+        return true;
+    }
+
+    private void notifyRemoved(int element) {
+        for (IntSetObserver observer : observers) {
+            observer.removed(this, element);
+        }
+    }
+
+    /**
+     * 삭제 표시(tombstone) 대신 뒤따르는 원소를 앞으로 당겨 탐사 체인을 유지한다.
+     * iterator는 배열을 뒤에서부터 훑기 때문에, 배열 앞쪽(아직 안 본 칸)에서 뒤쪽(이미 본 칸)으로
+     * 감겨 넘어온 원소는 wrapped에 따로 모아 빠뜨리지 않는다.
+     */
+    private void shiftKeys(int pos, IntList wrapped) {
+        int last;
+        int slot;
+        int curr;
+        while (true) {
+            pos = ((last = pos) + 1) & mask;
+            while (true) {
+                if ((curr = keys[pos]) == 0) {
+                    keys[last] = 0;
+                    return;
+                }
+                slot = mix(curr) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            if (pos < last && wrapped != null) {
+                wrapped.add(curr);
+            }
+            keys[last] = curr;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(keys, 0);
+        hasZero = false;
+        size = 0;
+        for (IntSetObserver observer : observers) {
+            observer.cleared(this);
+        }
+    }
+
+    public void forEachInt(IntConsumer action) {
+        if (hasZero) {
+            action.accept(0);
+        }
+        for (int key : keys) {
+            if (key != 0) {
+                action.accept(key);
+            }
+        }
+    }
+
+    public int[] toIntArray() {
+        int[] result = new int[size];
+        int i = 0;
+        if (hasZero) {
+            result[i++] = 0;
+        }
+        for (int key : keys) {
+            if (key != 0) {
+                result[i++] = key;
+            }
+        }
+        return result;
+    }
+
+    // 아래는 Set<Integer> 호환용 메소드로 박싱이 일어난다
+
+    @Override
+    public boolean add(Integer element) {
+        return add(element.intValue());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && contains(((Integer) o).intValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer && remove(((Integer) o).intValue());
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int pos = keys.length;
+            private int last = -1; // -1 : 없음, -2 : 원소 0, -3 : wrapped에서 꺼낸 원소
+            private int lastValue;
+            private int remaining = size;
+            private boolean mustReturnZero = hasZero;
+            private IntList wrapped;
+
+            @Override
+            public boolean hasNext() {
+                return remaining != 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                remaining--;
+                if (mustReturnZero) {
+                    mustReturnZero = false;
+                    last = -2;
+                    return lastValue = 0;
+                }
+                while (true) {
+                    if (--pos < 0) {
+                        last = -3;
+                        return lastValue = wrapped.get(-pos - 1);
+                    }
+                    if (keys[pos] != 0) {
+                        last = pos;
+                        return lastValue = keys[pos];
+                    }
+                }
+            }
+
+            @Override
+            public void remove() {
+                if (last == -1) {
+                    throw new IllegalStateException();
+                }
+                if (last == -3) {
+                    IntObservableSet.this.remove(lastValue);
+                } else if (last == -2) {
+                    IntObservableSet.this.remove(0);
+                } else {
+                    if (wrapped == null) {
+                        wrapped = new IntList();
+                    }
+                    shiftKeys(last, wrapped);
+                    size--;
+                    notifyRemoved(lastValue);
+                }
+                last = -1;
+            }
+        };
+    }
+
+    // iterator가 삭제 중에 감겨 넘어온 원소를 담는 최소한의 int 리스트
+    private static final class IntList {
+
+        private int[] elements = new int[4];
+        private int size;
+
+        void add(int element) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size << 1);
+            }
+            elements[size++] = element;
+        }
+
+        int get(int index) {
+            return elements[index];
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package chapter11.item79;
+
+@FunctionalInterface
+public interface IntSetObserver {
+
+    // IntObservableSet에 원소가 더해지면 호출된다. 박싱 없이 int 그대로 전달된다
+    void added(IntObservableSet set, int element);
+
+    // remove 또는 iterator의 remove로 원소가 제거되면 호출된다
+    default void removed(IntObservableSet set, int element) {
+    }
+
+    // clear로 모든 원소가 제거되면 호출된다
+    default void cleared(IntObservableSet set) {
+    }
+}
@@ -66,6 +66,24 @@ public class Item79Main {
             set3.add(i); // i가 추가 되었다. 알려라!
         }
 
+        /**
+         * CASE 4 : 옵저버를 비동기로 등록한다. 옵저버가 느려도 add를 호출한 쓰레드는 멈추지 않는다.
+         */
+        ObservableSetV2<Integer> set4 = new ObservableSetV2<>(new HashSet<>());
+
+        AsyncSetObserverV2<Integer> slowObserver = set4.addAsyncObserver((s, e) -> {
+            try {
+                Thread.sleep(1); // 느린 옵저버
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }, 16, BackpressurePolicy.DROP_OLDEST);
+
+        for (int i = 0; i < 100; i++) {
+            set4.add(i); // 큐가 넘치면 오래된 이벤트는 버려진다
+        }
+        System.out.println("overflow : " + slowObserver.getOverflowCount() + ", dropped : " + slowObserver.getDroppedCount());
+        set4.removeObserver(slowObserver); // 남은 이벤트를 전달하고 전용 쓰레드를 멈춘다
 
     }
 
@@ -1,9 +1,14 @@
 package chapter11.item79;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class ObservableSet<E> extends ForwardingSet<E> {
 
@@ -11,30 +16,98 @@ public class ObservableSet<E> extends ForwardingSet<E> {
         super(s);
     }
 
-    private final List<SetObserver<E>> observers = new ArrayList<>();
+    /**
+     * ConcurrentHashMap 기반 집합 위에 만든다. 외부 락 없이 여러 쓰레드가 동시에 add 해도 되고,
+     * 새로 추가된 원소마다 정확히 한번만 알린다. (add의 반환값이 true인 쓰레드만 알린다)
+     */
+    public static <E> ObservableSet<E> concurrent() {
+        return new ObservableSet<>(ConcurrentHashMap.newKeySet());
+    }
+
+    public static <E> ObservableSet<E> concurrent(int initialCapacity) {
+        return new ObservableSet<>(ConcurrentHashMap.newKeySet(initialCapacity));
+    }
+
+    /**
+     * 옵저버 목록은 불변 배열 스냅샷으로 들고 있고, 등록/해제할 때마다 새 스냅샷을 CAS로 교체한다.
+     * 알림은 시작 시점의 스냅샷을 락 없이 순회하므로 옵저버가 다른 쓰레드를 통해 자신을 해제해도 교착되지 않는다.
+     * 콜백 도중의 해제는 다음 이벤트부터 반영되고, 스냅샷이 바뀔 때마다 epoch가 1씩 증가한다.
+     */
+    private final AtomicReference<Snapshot<E>> observers = new AtomicReference<>(Snapshot.empty());
+
+    private static final class Snapshot<E> {
+
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private static final Snapshot<?> EMPTY = new Snapshot<>(new SetObserver[0], 0);
+
+        private final SetObserver<E>[] observers;
+        private final long epoch;
+
+        private Snapshot(SetObserver<E>[] observers, long epoch) {
+            this.observers = observers;
+            this.epoch = epoch;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <E> Snapshot<E> empty() {
+            return (Snapshot<E>) EMPTY;
+        }
+    }
 
     public List<SetObserver<E>> getObservers() {
-        return observers;
+        return List.of(observers.get().observers);
+    }
+
+    public long getEpoch() {
+        return observers.get().epoch;
     }
 
     public void addObserver(SetObserver<E> observer) {
-        synchronized (observers) {
-            observers.add(observer);
+        Objects.requireNonNull(observer);
+        while (true) {
+            Snapshot<E> current = observers.get();
+            SetObserver<E>[] next = Arrays.copyOf(current.observers, current.observers.length + 1);
+            next[current.observers.length] = observer;
+            if (observers.compareAndSet(current, new Snapshot<>(next, current.epoch + 1))) {
+                return;
+            }
         }
     }
 
     public boolean removeObserver(SetObserver<E> observer) {
-        synchronized (observers) {
-            return observers.remove(observer); // observers가 다른 동기화에 사용중이라면?!
+        while (true) {
+            Snapshot<E> current = observers.get();
+            int index = indexOf(current.observers, observer);
+            if (index < 0) {
+                return false;
+            }
+            SetObserver<E>[] next = Arrays.copyOf(current.observers, current.observers.length - 1);
+            System.arraycopy(current.observers, index + 1, next, index, next.length - index);
+            if (observers.compareAndSet(current, new Snapshot<>(next, current.epoch + 1))) {
+                return true;
+            }
         }
     }
 
-    private void notifyElementAdded(E element) {
-        synchronized (observers) {
-            for (SetObserver<E> observer : observers) {
-                observer.added(this, element); // added에서 무엇을 하는지 살펴봐라!
+    private static int indexOf(Object[] array, Object o) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i].equals(o)) {
+                return i;
             }
         }
+        return -1;
+    }
+
+    private void notifyElementAdded(E element) {
+        for (SetObserver<E> observer : observers.get().observers) { // 락을 잡지 않고 열린 호출을 한다
+            observer.added(this, element);
+        }
+    }
+
+    private void notifyElementsAdded(List<E> elements) {
+        for (SetObserver<E> observer : observers.get().observers) {
+            observer.addedAll(this, elements);
+        }
     }
 
     @Override
@@ -48,11 +121,17 @@ public class ObservableSet<E> extends ForwardingSet<E> {
 
     @Override
     public boolean addAll(Collection<? extends E> c) {
-        boolean result = false;
+        List<E> addedElements = new ArrayList<>();
         for (E element : c) {
-            result |= add(element);
+            if (super.add(element)) { // 원소마다 알리지 않고 새로 추가된 원소만 모아둔다
+                addedElements.add(element);
+            }
+        }
+        if (addedElements.isEmpty()) {
+            return false;
         }
-        return result;
+        notifyElementsAdded(Collections.unmodifiableList(addedElements)); // 한번만 알린다
+        return true;
     }
 
 
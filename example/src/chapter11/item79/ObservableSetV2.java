@@ -1,53 +1,344 @@
 package chapter11.item79;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ObservableSetV2<E> extends ForwardingSet<E> {
 
     public ObservableSetV2(Set<E> s) {
+        this(s, false);
+    }
+
+    private ObservableSetV2(Set<E> s, boolean concurrent) {
         super(s);
+        this.concurrent = concurrent;
+        this.stripes = concurrent ? newStripes() : null;
+    }
+
+    /**
+     * ConcurrentHashMap 기반 집합 위에 만든다. 외부 락 없이 여러 쓰레드가 동시에 써도 되고,
+     * 새로 추가(제거)된 원소마다 정확히 한번만 알린다. (add/remove의 반환값이 true인 쓰레드만 알린다)
+     *
+     * 순번은 원소의 해시로 고른 스트라이프 락을 잡은 채로 변경과 함께 정한다. 그래서 같은 원소에 대한 이벤트는
+     * 실제 변경 순서와 순번 순서가 같고, 순번 순서대로 적용하는 복제본은 집합과 같은 상태가 된다.
+     * 여러 원소를 바꾸는 연산(addAll, removeAll, retainAll, clear)은 모든 스트라이프 락을 잡고 연속된 순번을 예약한다.
+     * clear는 기본 집합과 똑같이 cleared 하나로 알린다. 모든 락을 잡은 채로 비우므로 그 사이에 끼어드는 변경은 없다.
+     * 알림은 락을 놓은 뒤에 보낸다.
+     */
+    public static <E> ObservableSetV2<E> concurrent() {
+        return new ObservableSetV2<>(ConcurrentHashMap.newKeySet(), true);
+    }
+
+    public static <E> ObservableSetV2<E> concurrent(int initialCapacity) {
+        return new ObservableSetV2<>(ConcurrentHashMap.newKeySet(initialCapacity), true);
     }
 
+    private final boolean concurrent;
+
+    private static final int STRIPE_COUNT = 64;
+
+    private final ReentrantLock[] stripes; // concurrent일 때만 쓴다
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
     private final List<SetObserverV2<E>> observers = new CopyOnWriteArrayList<>();
 
+    private final AtomicLong sequence = new AtomicLong(); // 마지막으로 발행한 이벤트의 순번
+
     public List<SetObserverV2<E>> getObservers() {
         return observers;
     }
 
+    public long getSequence() {
+        return sequence.get();
+    }
+
     public void addObserver(SetObserverV2<E> observer) {
         observers.add(observer);
     }
 
+    /**
+     * 옵저버를 쓰는 쓰레드와 분리된 전용 쓰레드에서 호출되도록 등록한다.
+     * 반환된 옵저버로 지표를 확인한다. removeObserver로 제거하면 남은 이벤트를 전달하고 전용 쓰레드를 멈춘다.
+     */
+    public AsyncSetObserverV2<E> addAsyncObserver(SetObserverV2<E> observer, int capacity, BackpressurePolicy policy) {
+        return addAsyncObserver(observer, capacity, DEFAULT_MAX_BATCH_SIZE, policy);
+    }
+
+    public AsyncSetObserverV2<E> addAsyncObserver(SetObserverV2<E> observer, int capacity, int maxBatchSize,
+                                                  BackpressurePolicy policy) {
+        AsyncSetObserverV2<E> asyncObserver = new AsyncSetObserverV2<>(this, observer, capacity, maxBatchSize, policy);
+        observers.add(asyncObserver);
+        return asyncObserver;
+    }
+
     public boolean removeObserver(SetObserverV2<E> observer) {
-        return observers.remove(observer);
+        boolean removed = observers.remove(observer);
+        if (removed && observer instanceof AsyncSetObserverV2) {
+            ((AsyncSetObserverV2<E>) observer).close(); // 더 이상 이벤트가 오지 않으므로 전용 쓰레드를 정리한다
+        }
+        return removed;
+    }
+
+    private void notifyElementAdded(E element, long seq) {
+        for (SetObserverV2<E> observer : observers) {
+            observer.added(this, element, seq); // added에서 무엇을 하는지 살펴봐라!
+        }
     }
 
-    private void notifyElementAdded(E element) {
+    private void notifyElementsAdded(List<E> elements, long firstSeq) {
+        for (SetObserverV2<E> observer : observers) {
+            observer.addedAll(this, elements, firstSeq);
+        }
+    }
 
+    private void notifyElementRemoved(E element, long seq) {
         for (SetObserverV2<E> observer : observers) {
-            observer.added(this, element); // added에서 무엇을 하는지 살펴봐라!
+            observer.removed(this, element, seq);
+        }
+    }
+
+    private void notifyElementsRemoved(List<E> elements, long firstSeq) {
+        for (SetObserverV2<E> observer : observers) {
+            observer.removedAll(this, elements, firstSeq);
+        }
+    }
+
+    private void notifyCleared(long seq) {
+        for (SetObserverV2<E> observer : observers) {
+            observer.cleared(this, seq);
         }
     }
 
     @Override
     public boolean add(E element) {
-        boolean added = super.add(element); // 상위 Set에 추가
-        if (added) {
-            notifyElementAdded(element); // s에 값이 추가되었다는 것을 다른 옵저버들에게 알린다!!
+        long seq;
+        ReentrantLock lock = lockFor(element);
+        try {
+            if (!super.add(element)) { // 상위 Set에 추가
+                return false;
+            }
+            seq = sequence.incrementAndGet();
+        } finally {
+            unlock(lock);
         }
-        return added;
+        notifyElementAdded(element, seq); // s에 값이 추가되었다는 것을 다른 옵저버들에게 알린다!!
+        return true;
     }
 
     @Override
     public boolean addAll(Collection<? extends E> c) {
-        boolean result = false;
-        for (E element : c) {
-            result |= add(element);
+        List<E> addedElements = new ArrayList<>();
+        long firstSeq;
+        lockAll();
+        try {
+            for (E element : c) {
+                if (super.add(element)) { // 원소마다 알리지 않고 새로 추가된 원소만 모아둔다
+                    addedElements.add(element);
+                }
+            }
+            if (addedElements.isEmpty()) {
+                return false;
+            }
+            firstSeq = sequence.getAndAdd(addedElements.size()) + 1; // 원소 수만큼 순번을 한번에 예약한다
+        } finally {
+            unlockAll();
+        }
+        notifyElementsAdded(Collections.unmodifiableList(addedElements), firstSeq); // 한번만 알린다
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object o) {
+        long seq;
+        ReentrantLock lock = lockFor(o);
+        try {
+            if (!super.remove(o)) {
+                return false;
+            }
+            seq = sequence.incrementAndGet();
+        } finally {
+            unlock(lock);
         }
-        return result;
+        notifyElementRemoved((E) o, seq); // 집합에 들어있던 원소이므로 E 타입이다
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        List<E> removedElements = new ArrayList<>();
+        long firstSeq;
+        lockAll();
+        try {
+            if (size() > c.size()) {
+                for (Object o : c) {
+                    removeQuietly(o, removedElements);
+                }
+            } else {
+                for (E element : candidates(c, true)) {
+                    removeQuietly(element, removedElements);
+                }
+            }
+            firstSeq = reserve(removedElements);
+        } finally {
+            unlockAll();
+        }
+        return notifyIfRemoved(removedElements, firstSeq);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        List<E> removedElements = new ArrayList<>();
+        long firstSeq;
+        lockAll();
+        try {
+            for (E element : candidates(c, false)) {
+                removeQuietly(element, removedElements);
+            }
+            firstSeq = reserve(removedElements);
+        } finally {
+            unlockAll();
+        }
+        return notifyIfRemoved(removedElements, firstSeq);
+    }
+
+    // 후보를 먼저 모으고 remove의 반환값으로 확정해야 동시에 지우는 쓰레드끼리 같은 원소를 두번 알리지 않는다
+    private List<E> candidates(Collection<?> c, boolean contained) {
+        List<E> candidates = new ArrayList<>();
+        for (Iterator<E> it = super.iterator(); it.hasNext(); ) { // 상위 Set의 iterator는 알림을 보내지 않는다
+            E element = it.next();
+            if (c.contains(element) == contained) {
+                candidates.add(element);
+            }
+        }
+        return candidates;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void removeQuietly(Object o, List<E> removedElements) {
+        if (super.remove(o)) {
+            removedElements.add((E) o);
+        }
+    }
+
+    // 지운 원소 수만큼 순번을 예약한다. 지운 것이 없으면 0
+    private long reserve(List<E> removedElements) {
+        return removedElements.isEmpty() ? 0 : sequence.getAndAdd(removedElements.size()) + 1;
+    }
+
+    private boolean notifyIfRemoved(List<E> removedElements, long firstSeq) {
+        if (removedElements.isEmpty()) {
+            return false;
+        }
+        notifyElementsRemoved(Collections.unmodifiableList(removedElements), firstSeq);
+        return true;
+    }
+
+    // 어느 모드든 비어있지 않았다면 cleared 하나로 알린다. 복제본은 그 순번에서 전부 비우면 된다
+    @Override
+    public void clear() {
+        long seq;
+        lockAll();
+        try {
+            if (isEmpty()) {
+                return;
+            }
+            super.clear();
+            seq = sequence.incrementAndGet();
+        } finally {
+            unlockAll();
+        }
+        notifyCleared(seq);
+    }
+
+    private static ReentrantLock[] newStripes() {
+        ReentrantLock[] stripes = new ReentrantLock[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        return stripes;
+    }
+
+    // concurrent가 아니면 락을 잡지 않고 null을 돌려준다 (외부에서 동기화한다)
+    private ReentrantLock lockFor(Object o) {
+        if (!concurrent) {
+            return null;
+        }
+        int h = o == null ? 0 : o.hashCode();
+        ReentrantLock lock = stripes[(h ^ (h >>> 16)) & (STRIPE_COUNT - 1)];
+        lock.lock();
+        return lock;
+    }
+
+    private static void unlock(ReentrantLock lock) {
+        if (lock != null) {
+            lock.unlock();
+        }
+    }
+
+    // 항상 같은 순서로 잡아서 교착 상태가 생기지 않는다
+    private void lockAll() {
+        if (!concurrent) {
+            return;
+        }
+        for (ReentrantLock lock : stripes) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        if (!concurrent) {
+            return;
+        }
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    // iterator로 제거한 원소도 옵저버에게 알린다. removeIf도 이 iterator를 거친다
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<E> it = super.iterator();
+        return new Iterator<E>() {
+            private E last;
+            private boolean removable;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                last = it.next();
+                removable = true;
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (!concurrent) {
+                    it.remove(); // next를 호출하지 않았다면 여기서 IllegalStateException
+                    notifyElementRemoved(last, sequence.incrementAndGet());
+                    return;
+                }
+                if (!removable) {
+                    throw new IllegalStateException();
+                }
+                removable = false;
+                // 동시 집합은 반복 중에 직접 지워도 되므로 remove의 반환값으로 한번만 알린다. 순번은 remove가 락 안에서 정한다
+                ObservableSetV2.this.remove(last);
+            }
+        };
     }
 
 
@@ -1,8 +1,29 @@
 package chapter11.item79;
 
+import java.util.Collection;
+
 @FunctionalInterface
 public interface SetObserver<E> {
 
     // ObservableSet에 원소가 더해지면 호출된다
     void added(ObservableSet<E> set, E element);
+
+    // addAll로 원소가 한꺼번에 더해지면 새로 추가된 원소만 모아 한번 호출된다
+    default void addedAll(ObservableSet<E> set, Collection<E> elements) {
+        RuntimeException failure = null;
+        for (E element : elements) {
+            try {
+                added(set, element);
+            } catch (RuntimeException e) { // 한 원소에서 실패해도 나머지 원소는 알린다
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
 }
@@ -1,8 +1,68 @@
 package chapter11.item79;
 
+import java.util.Collection;
+
+/**
+ * 모든 이벤트에는 ObservableSetV2 안에서 단조 증가하는 순번(sequence)이 붙는다.
+ * 순번을 따라 이벤트를 적용하면 집합 전체를 다시 훑지 않고도 복제본을 유지할 수 있다.
+ */
 @FunctionalInterface
 public interface SetObserverV2<E> {
 
     // ObservableSet에 원소가 더해지면 호출된다
     void added(ObservableSetV2<E> set, E element);
+
+    // 순번이 필요한 옵저버는 이 메소드를 재정의한다
+    default void added(ObservableSetV2<E> set, E element, long sequence) {
+        added(set, element);
+    }
+
+    // addAll로 원소가 한꺼번에 더해지면 새로 추가된 원소만 모아 한번 호출된다. 순번은 firstSequence부터 차례로 붙는다
+    // 기본 구현은 원소마다 added를 호출하고, 실패한 원소가 있으면 모두 호출한 뒤 첫 예외를 던진다
+    default void addedAll(ObservableSetV2<E> set, Collection<E> elements, long firstSequence) {
+        long sequence = firstSequence;
+        RuntimeException failure = null;
+        for (E element : elements) {
+            try {
+                added(set, element, sequence++);
+            } catch (RuntimeException e) { // 한 원소에서 실패해도 나머지 원소는 알린다
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // remove 또는 iterator의 remove로 원소가 제거되면 호출된다
+    default void removed(ObservableSetV2<E> set, E element, long sequence) {
+    }
+
+    // removeAll, retainAll로 원소가 한꺼번에 제거되면 실제로 제거된 원소만 모아 한번 호출된다
+    default void removedAll(ObservableSetV2<E> set, Collection<E> elements, long firstSequence) {
+        long sequence = firstSequence;
+        RuntimeException failure = null;
+        for (E element : elements) {
+            try {
+                removed(set, element, sequence++);
+            } catch (RuntimeException e) { // 한 원소에서 실패해도 나머지 원소는 알린다
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // clear로 모든 원소가 제거되면 호출된다. 기본 집합이든 concurrent() 집합이든 같다
+    default void cleared(ObservableSetV2<E> set, long sequence) {
+    }
 }
@@ -0,0 +1,364 @@
+package chapter11.item81;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Item81Main.map은 커지기만 하므로 요청마다 다른 문자열을 intern 하면 메모리가 샌다.
+ * 이 인터너는 크기(또는 가중치) 상한을 넘으면 오래 쓰이지 않은 문자열부터 내보낸다.
+ *
+ * 내보낼 대상은 CLOCK(second chance) 방식으로 고른다. LRU와 달리 조회할 때 순서를 바꾸지 않고
+ * 참조 비트만 세우므로 조회 경로는 internV2처럼 락 없는 get 한번으로 끝난다.
+ * 값을 약한 참조나 소프트 참조로 들고 있게 하면 아무도 쓰지 않는 문자열은 GC가 회수한다.
+ * 회수되어 맵에서 빠진 항목이 clock에 쌓이지 않도록, 죽은 항목이 살아있는 항목보다 많아지면 clock을 한번 훑어 치운다.
+ */
+public class BoundedInterner {
+
+    public enum ValueStrength { STRONG, WEAK, SOFT }
+
+    private final ConcurrentHashMap<Object, Entry> map = new ConcurrentHashMap<>();
+    private final Queue<Entry> clock = new ConcurrentLinkedQueue<>(); // 머리에서 꺼내 검사하고, 참조되었으면 꼬리로 보낸다
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final ReferenceQueue<String> collected = new ReferenceQueue<>();
+    private final AtomicLong weightedSize = new AtomicLong();
+    private final AtomicLong deadInClock = new AtomicLong(); // 맵에서는 빠졌지만 아직 clock에 남아있는 항목 수
+
+    private static final int MIN_PURGE_THRESHOLD = 64;
+
+    // 약한/소프트 참조 모드에서 조회할 때마다 LookupKey를 만들지 않도록 쓰레드마다 하나를 재사용한다
+    private static final ThreadLocal<LookupKey> LOOKUP_KEY = ThreadLocal.withInitial(LookupKey::new);
+
+    private final long maximumWeight;
+    private final ToIntFunction<String> weigher;
+    private final ValueStrength valueStrength;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder collectedCount = new LongAdder();
+
+    private BoundedInterner(Builder builder) {
+        this.maximumWeight = builder.maximumWeight;
+        this.weigher = builder.weigher;
+        this.valueStrength = builder.valueStrength;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private long maximumWeight = -1;
+        private ToIntFunction<String> weigher = s -> 1;
+        private ValueStrength valueStrength = ValueStrength.STRONG;
+
+        private Builder() {
+        }
+
+        public Builder maximumSize(long maximumSize) {
+            return maximumWeight(maximumSize, s -> 1);
+        }
+
+        // 예 : maximumWeight(64 * 1024 * 1024, String::length) 는 대략 문자 수로 상한을 건다
+        public Builder maximumWeight(long maximumWeight, ToIntFunction<String> weigher) {
+            if (maximumWeight < 0) {
+                throw new IllegalArgumentException(maximumWeight + " < 0");
+            }
+            this.maximumWeight = maximumWeight;
+            this.weigher = Objects.requireNonNull(weigher);
+            return this;
+        }
+
+        public Builder weakValues() {
+            this.valueStrength = ValueStrength.WEAK;
+            return this;
+        }
+
+        public Builder softValues() {
+            this.valueStrength = ValueStrength.SOFT;
+            return this;
+        }
+
+        public BoundedInterner build() {
+            if (maximumWeight < 0) {
+                throw new IllegalStateException("maximumSize 또는 maximumWeight를 지정해야 합니다.");
+            }
+            return new BoundedInterner(this);
+        }
+    }
+
+    public String intern(String s) {
+        Entry entry = get(s); // 먼저 하나 꺼내본다. internV2와 같은 빠른 경로
+        if (entry != null) {
+            String value = entry.value();
+            if (value != null) {
+                if (!entry.referenced) { // 이미 세워져 있다면 쓰지 않아 캐시 라인을 더럽히지 않는다
+                    entry.referenced = true;
+                }
+                hitCount.increment();
+                return value;
+            }
+        }
+        missCount.increment();
+        return internSlow(s);
+    }
+
+    private String internSlow(String s) {
+        drainCollected();
+        Entry created = new Entry(newKey(s), weigher.applyAsInt(s));
+        while (true) {
+            Entry previous = map.putIfAbsent(created.key, created);
+            if (previous == null) {
+                break;
+            }
+            String value = previous.value();
+            if (value != null) {
+                return value; // 다른 쓰레드가 먼저 넣었다
+            }
+            if (map.remove(previous.key, previous)) { // GC가 회수한 빈 항목은 치우고 다시 넣는다
+                removedInClock(previous);
+            }
+        }
+        clock.add(created);
+        weightedSize.addAndGet(created.weight);
+        evictIfNeeded();
+        return s;
+    }
+
+    private void evictIfNeeded() {
+        if (weightedSize.get() <= maximumWeight || !evictionLock.tryLock()) {
+            return; // 다른 쓰레드가 이미 내보내고 있다면 맡긴다
+        }
+        try {
+            while (weightedSize.get() > maximumWeight) {
+                Entry candidate = clock.poll();
+                if (candidate == null) {
+                    return;
+                }
+                if (candidate.removed) {
+                    deadInClock.decrementAndGet();
+                    continue;
+                }
+                if (candidate.referenced) { // 최근에 쓰였다면 한번 더 기회를 준다
+                    candidate.referenced = false;
+                    clock.add(candidate);
+                    continue;
+                }
+                if (map.remove(candidate.key, candidate)) {
+                    removed(candidate);
+                    evictionCount.increment();
+                } else {
+                    deadInClock.decrementAndGet(); // 꺼낸 사이에 GC로 회수되어 이미 센 항목이다
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void drainCollected() {
+        Reference<? extends String> reference;
+        while ((reference = collected.poll()) != null) {
+            Entry entry = map.remove(reference);
+            if (entry != null) {
+                removedInClock(entry);
+                collectedCount.increment();
+            }
+        }
+        long dead = deadInClock.get();
+        if (dead > MIN_PURGE_THRESHOLD && dead > map.size()) {
+            purgeClock();
+        }
+    }
+
+    // 죽은 항목이 살아있는 항목보다 많을 때만 훑으므로 훑는 비용은 치운 항목 수에 비례한다
+    private void purgeClock() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            for (Iterator<Entry> it = clock.iterator(); it.hasNext(); ) {
+                if (it.next().removed) {
+                    it.remove();
+                    deadInClock.decrementAndGet();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void removed(Entry entry) {
+        entry.removed = true;
+        weightedSize.addAndGet(-entry.weight);
+    }
+
+    // clock에서 꺼내지 않은 채로 맵에서 지운 항목. clock을 훑을 때나 내보낼 때 치운다
+    private void removedInClock(Entry entry) {
+        removed(entry);
+        deadInClock.incrementAndGet();
+    }
+
+    private Entry get(String s) {
+        if (valueStrength == ValueStrength.STRONG) {
+            return map.get(s);
+        }
+        LookupKey key = LOOKUP_KEY.get();
+        key.s = s;
+        try {
+            return map.get(key);
+        } finally {
+            key.s = null; // 조회가 끝난 문자열을 붙잡아 두지 않는다
+        }
+    }
+
+    private Object newKey(String s) {
+        switch (valueStrength) {
+            case WEAK:
+                return new WeakKey(s, collected);
+            case SOFT:
+                return new SoftKey(s, collected);
+            default:
+                return s;
+        }
+    }
+
+    public long size() {
+        return map.size();
+    }
+
+    public long weightedSize() {
+        return weightedSize.get();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public long getCollectedCount() {
+        return collectedCount.sum();
+    }
+
+    public double hitRate() {
+        long hits = hitCount.sum();
+        long total = hits + missCount.sum();
+        return total == 0 ? 1.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedInterner[size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount() + ", collected=" + getCollectedCount() + "]";
+    }
+
+    private static final class Entry {
+
+        private final Object key; // STRONG이면 문자열 자신, 아니면 WeakKey 또는 SoftKey
+        private final int weight;
+        private volatile boolean referenced;
+        private volatile boolean removed;
+
+        Entry(Object key, int weight) {
+            this.key = key;
+            this.weight = weight;
+        }
+
+        @SuppressWarnings("unchecked")
+        String value() {
+            return key instanceof String ? (String) key : ((Reference<String>) key).get();
+        }
+    }
+
+    // 약한/소프트 참조 키는 가리키는 문자열끼리 비교한다. 회수된 뒤에는 자기 자신과만 같다
+    private static boolean referentEquals(Object self, String referent, Object o) {
+        if (self == o) {
+            return true;
+        }
+        if (referent == null) {
+            return false;
+        }
+        if (o instanceof LookupKey) {
+            return referent.equals(((LookupKey) o).s);
+        }
+        if (o instanceof Reference) {
+            return referent.equals(((Reference<?>) o).get());
+        }
+        return false;
+    }
+
+    private static final class WeakKey extends WeakReference<String> {
+
+        private final int hash;
+
+        WeakKey(String s, ReferenceQueue<String> queue) {
+            super(s, queue);
+            this.hash = s.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return referentEquals(this, get(), o);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class SoftKey extends SoftReference<String> {
+
+        private final int hash;
+
+        SoftKey(String s, ReferenceQueue<String> queue) {
+            super(s, queue);
+            this.hash = s.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return referentEquals(this, get(), o);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // 조회할 때만 잠깐 쓰는 키. 약한 참조를 새로 만들지 않고도 저장된 키와 비교할 수 있다. 맵에 넣지 않는다
+    private static final class LookupKey {
+
+        private String s;
+
+        @Override
+        public boolean equals(Object o) {
+            return referentEquals(this, s, o);
+        }
+
+        @Override
+        public int hashCode() {
+            return s.hashCode();
+        }
+    }
+}
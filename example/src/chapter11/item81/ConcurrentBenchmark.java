@@ -0,0 +1,296 @@
+package chapter11.item81;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Item81Main.time의 ready/start/done 래치 동작을 그대로 쓰면서 여러번 반복 측정하는 동시성 마이크로 벤치마크.
+ * 워밍업 라운드는 버리고, 측정 라운드마다 쓰레드별 히스토그램에 연산 하나하나의 지연 시간을 기록한다.
+ * 결과로 처리량(ops/s)과 p50/p99/p999 지연 시간을 주고, CSV나 JSON으로 내보낼 수 있다.
+ * JMH의 gc 프로파일러처럼 연산당 할당 바이트와 측정 중 GC 횟수/시간도 함께 기록한다.
+ *
+ * 연산마다 System.nanoTime을 두번 호출하므로 수십 ns 이하의 연산은 지연 시간에 그 비용이 섞여 있다.
+ */
+public class ConcurrentBenchmark {
+
+    private final String name;
+    private final int concurrency;
+    private final int warmupRounds;
+    private final int measuredRounds;
+    private final int operationsPerThread;
+    private final Operation operation;
+
+    @FunctionalInterface
+    public interface Operation {
+        // thread는 0부터 concurrency - 1, iteration은 0부터 operationsPerThread - 1 이다
+        void run(int thread, int iteration);
+    }
+
+    private ConcurrentBenchmark(Builder builder) {
+        this.name = builder.name;
+        this.concurrency = builder.concurrency;
+        this.warmupRounds = builder.warmupRounds;
+        this.measuredRounds = builder.measuredRounds;
+        this.operationsPerThread = builder.operationsPerThread;
+        this.operation = builder.operation;
+    }
+
+    public static Builder builder(String name, Operation operation) {
+        return new Builder(name, operation);
+    }
+
+    public static class Builder {
+
+        private final String name;
+        private final Operation operation;
+        private int concurrency = 1;
+        private int warmupRounds = 5;
+        private int measuredRounds = 10;
+        private int operationsPerThread = 100_000;
+
+        private Builder(String name, Operation operation) {
+            this.name = Objects.requireNonNull(name);
+            this.operation = Objects.requireNonNull(operation);
+        }
+
+        public Builder concurrency(int concurrency) {
+            this.concurrency = positive(concurrency);
+            return this;
+        }
+
+        public Builder warmupRounds(int warmupRounds) {
+            if (warmupRounds < 0) {
+                throw new IllegalArgumentException(warmupRounds + " < 0");
+            }
+            this.warmupRounds = warmupRounds;
+            return this;
+        }
+
+        public Builder measuredRounds(int measuredRounds) {
+            this.measuredRounds = positive(measuredRounds);
+            return this;
+        }
+
+        public Builder operationsPerThread(int operationsPerThread) {
+            this.operationsPerThread = positive(operationsPerThread);
+            return this;
+        }
+
+        private static int positive(int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(value + " <= 0");
+            }
+            return value;
+        }
+
+        public ConcurrentBenchmark build() {
+            return new ConcurrentBenchmark(this);
+        }
+    }
+
+    // executor는 concurrency개 이상의 쓰레드를 동시에 돌릴 수 있어야 한다. (아니면 기아 교착에 빠진다)
+    public Result run(ExecutorService executor) throws InterruptedException {
+        for (int i = 0; i < warmupRounds; i++) {
+            runRound(executor, null, null);
+        }
+
+        LatencyHistogram[] histograms = new LatencyHistogram[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        AtomicLong allocatedBytes = new AtomicLong();
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        long[] roundNanos = new long[measuredRounds];
+        for (int i = 0; i < measuredRounds; i++) {
+            roundNanos[i] = runRound(executor, histograms, allocatedBytes);
+        }
+        long gcCount = gcCount() - gcCountBefore;
+        long gcMillis = gcMillis() - gcMillisBefore;
+
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram histogram : histograms) {
+            merged.merge(histogram);
+        }
+        long operationsPerRound = (long) concurrency * operationsPerThread;
+        double allocatedBytesPerOp = allocatedBytes.get() < 0
+                ? Double.NaN
+                : (double) allocatedBytes.get() / (operationsPerRound * measuredRounds);
+        return new Result(name, concurrency, operationsPerRound, roundNanos, merged,
+                allocatedBytesPerOp, gcCount, gcMillis);
+    }
+
+    private long runRound(ExecutorService executor, LatencyHistogram[] histograms, AtomicLong allocatedBytes)
+            throws InterruptedException {
+        AtomicInteger nextThread = new AtomicInteger();
+        return Item81Main.time(executor, concurrency, () -> {
+            int thread = nextThread.getAndIncrement();
+            if (histograms == null) {
+                for (int i = 0; i < operationsPerThread; i++) {
+                    operation.run(thread, i);
+                }
+                return;
+            }
+            LatencyHistogram histogram = histograms[thread];
+            long allocatedBefore = currentThreadAllocatedBytes();
+            for (int i = 0; i < operationsPerThread; i++) {
+                long start = System.nanoTime();
+                operation.run(thread, i);
+                histogram.record(System.nanoTime() - start);
+            }
+            long allocatedAfter = currentThreadAllocatedBytes();
+            if (allocatedBefore < 0 || allocatedAfter < 0) {
+                allocatedBytes.set(-1L); // 할당량 측정을 지원하지 않는 JVM
+            } else {
+                allocatedBytes.accumulateAndGet(allocatedAfter - allocatedBefore,
+                        (total, delta) -> total < 0 ? total : total + delta);
+            }
+        });
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspotMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (hotspotMXBean.isThreadAllocatedMemorySupported() && hotspotMXBean.isThreadAllocatedMemoryEnabled()) {
+                return hotspotMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1L;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0L, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0L, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    public static class Result {
+
+        private static final String CSV_HEADER = "name,concurrency,rounds,opsPerRound,throughput(ops/s),"
+                + "p50(ns),p99(ns),p999(ns),max(ns),alloc(B/op),gcCount,gcTime(ms)";
+
+        private final String name;
+        private final int concurrency;
+        private final long operationsPerRound;
+        private final long[] roundNanos;
+        private final LatencyHistogram histogram;
+        private final double allocatedBytesPerOp;
+        private final long gcCount;
+        private final long gcMillis;
+
+        private Result(String name, int concurrency, long operationsPerRound, long[] roundNanos,
+                       LatencyHistogram histogram, double allocatedBytesPerOp, long gcCount, long gcMillis) {
+            this.name = name;
+            this.concurrency = concurrency;
+            this.operationsPerRound = operationsPerRound;
+            this.roundNanos = roundNanos;
+            this.histogram = histogram;
+            this.allocatedBytesPerOp = allocatedBytesPerOp;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        // 라운드별 처리량의 평균이 아니라 전체 연산 수를 전체 시간으로 나눈다
+        public double getThroughput() {
+            long totalNanos = 0;
+            for (long nanos : roundNanos) {
+                totalNanos += nanos;
+            }
+            return operationsPerRound * roundNanos.length / (totalNanos / 1e9);
+        }
+
+        public long getP50() {
+            return histogram.valueAtPercentile(0.5);
+        }
+
+        public long getP99() {
+            return histogram.valueAtPercentile(0.99);
+        }
+
+        public long getP999() {
+            return histogram.valueAtPercentile(0.999);
+        }
+
+        public long getMax() {
+            return histogram.getMax();
+        }
+
+        // 할당량 측정을 지원하지 않는 JVM에서는 NaN이다
+        public double getAllocatedBytesPerOp() {
+            return allocatedBytesPerOp;
+        }
+
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        public long getGcMillis() {
+            return gcMillis;
+        }
+
+        public String toCsvRow() {
+            return String.format(Locale.ROOT, "%s,%d,%d,%d,%.1f,%d,%d,%d,%d,%.1f,%d,%d",
+                    name, concurrency, roundNanos.length, operationsPerRound, getThroughput(),
+                    getP50(), getP99(), getP999(), getMax(), allocatedBytesPerOp, gcCount, gcMillis);
+        }
+
+        public String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"name\":\"%s\",\"concurrency\":%d,\"rounds\":%d,\"opsPerRound\":%d,"
+                            + "\"throughput\":%.1f,\"p50\":%d,\"p99\":%d,\"p999\":%d,\"max\":%d,"
+                            + "\"allocBytesPerOp\":%s,\"gcCount\":%d,\"gcTimeMillis\":%d}",
+                    name.replace("\\", "\\\\").replace("\"", "\\\""), concurrency, roundNanos.length,
+                    operationsPerRound, getThroughput(), getP50(), getP99(), getP999(), getMax(),
+                    Double.isNaN(allocatedBytesPerOp) ? "null" : String.format(Locale.ROOT, "%.1f", allocatedBytesPerOp),
+                    gcCount, gcMillis);
+        }
+
+        public static String toCsv(List<Result> results) {
+            StringBuilder sb = new StringBuilder(CSV_HEADER).append('\n');
+            for (Result result : results) {
+                sb.append(result.toCsvRow()).append('\n');
+            }
+            return sb.toString();
+        }
+
+        public static String toJson(List<Result> results) {
+            List<String> rows = new ArrayList<>(results.size());
+            for (Result result : results) {
+                rows.add(result.toJson());
+            }
+            return "[" + String.join(",", rows) + "]";
+        }
+
+        @Override
+        public String toString() {
+            return toCsvRow();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package chapter11.item81;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * intern, internV2, StripedInterner, String.intern()을 쓰레드 수를 1부터 64까지 늘려가며 비교한다.
+ * 실제 요청처럼 일부 문자열이 훨씬 자주 나오도록 키는 Zipf 분포(s = 1.0)로 뽑는다.
+ */
+public class InternerBenchmarkMain {
+
+    private static final int KEY_COUNT = 100_000;
+    private static final int SAMPLE_COUNT = 1 << 20;
+    private static final double ZIPF_EXPONENT = 1.0;
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    public static void main(String[] args) throws InterruptedException {
+        String[] keys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "request-" + i;
+        }
+        int[] samples = zipfSamples(KEY_COUNT, SAMPLE_COUNT, ZIPF_EXPONENT, new Random(42));
+        int sampleMask = SAMPLE_COUNT - 1;
+
+        List<ConcurrentBenchmark.Result> results = new ArrayList<>();
+        for (int threads : THREAD_COUNTS) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                StripedInterner stripedInterner = new StripedInterner();
+                // 쓰레드마다 샘플 배열의 다른 위치에서 시작한다
+                int stride = SAMPLE_COUNT / threads;
+                results.add(run(executor, threads, "intern",
+                        (thread, i) -> Item81Main.intern(keys[samples[(thread * stride + i) & sampleMask]])));
+                results.add(run(executor, threads, "internV2",
+                        (thread, i) -> Item81Main.internV2(keys[samples[(thread * stride + i) & sampleMask]])));
+                results.add(run(executor, threads, "StripedInterner",
+                        (thread, i) -> stripedInterner.intern(keys[samples[(thread * stride + i) & sampleMask]])));
+                results.add(run(executor, threads, "String.intern",
+                        (thread, i) -> keys[samples[(thread * stride + i) & sampleMask]].intern()));
+            } finally {
+                executor.shutdown();
+            }
+        }
+        System.out.print(ConcurrentBenchmark.Result.toCsv(results));
+    }
+
+    private static ConcurrentBenchmark.Result run(ExecutorService executor, int threads, String name,
+                                                  ConcurrentBenchmark.Operation operation) throws InterruptedException {
+        return ConcurrentBenchmark.builder(name, operation)
+                .concurrency(threads)
+                .warmupRounds(3)
+                .measuredRounds(5)
+                .operationsPerThread(200_000)
+                .build()
+                .run(executor);
+    }
+
+    // 누적 분포를 미리 만들어두고 이진 탐색으로 뽑는다. 측정 중에는 난수를 만들지 않는다
+    static int[] zipfSamples(int n, int count, double exponent, Random random) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        int[] samples = new int[count];
+        for (int i = 0; i < count; i++) {
+            double u = random.nextDouble() * sum;
+            int low = 0;
+            int high = n - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cdf[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            samples[i] = low;
+        }
+        return samples;
+    }
+}
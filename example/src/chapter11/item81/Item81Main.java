@@ -1,5 +1,7 @@
 package chapter11.item81;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
@@ -9,8 +11,36 @@ import java.util.concurrent.Executors;
 
 public class Item81Main {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
 
+        // intern, internV2, 크기 제한이 있는 BoundedInterner를 같은 조건에서 측정해본다
+        String[] keys = new String[10_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "key-" + i;
+        }
+
+        int concurrency = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<ConcurrentBenchmark.Result> results = new ArrayList<>();
+            results.add(ConcurrentBenchmark.builder("intern", (thread, i) -> intern(keys[i % keys.length]))
+                    .concurrency(concurrency)
+                    .build()
+                    .run(executor));
+            results.add(ConcurrentBenchmark.builder("internV2", (thread, i) -> internV2(keys[i % keys.length]))
+                    .concurrency(concurrency)
+                    .build()
+                    .run(executor));
+            BoundedInterner boundedInterner = BoundedInterner.builder().maximumSize(keys.length).build();
+            results.add(ConcurrentBenchmark.builder("BoundedInterner", (thread, i) -> boundedInterner.intern(keys[i % keys.length]))
+                    .concurrency(concurrency)
+                    .build()
+                    .run(executor));
+            System.out.print(ConcurrentBenchmark.Result.toCsv(results));
+            System.out.println(boundedInterner);
+        } finally {
+            executor.shutdown();
+        }
     }
 
     public static final ConcurrentMap<String, String> map = new ConcurrentHashMap<>();
@@ -0,0 +1,91 @@
+package chapter11.item81;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 쓰레드마다 작은 직접 사상(direct-mapped) 배열을 앞단 캐시로 두고, 그 뒤에 여러 개로 나눈 공유 테이블을 둔다.
+ * 자주 쓰이는 문자열은 앞단 캐시에서 바로 찾으므로 공유 메모리를 전혀 건드리지 않는다.
+ * 앞단 캐시에서 못 찾으면 internV2처럼 공유 테이블에서 먼저 get 해보고, 없을 때만 putIfAbsent 한다.
+ *
+ * 앞단 캐시는 intern을 부른 쓰레드마다 인스턴스 하나당 String[frontCacheSize] 하나씩 생기고, 비우지 않는다.
+ * 쓰레드가 끝나거나 이 인스턴스에 대한 참조가 모두 사라져 ThreadLocal 항목이 정리될 때까지 배열과 그 안의 문자열이 남는다.
+ * 스레드 풀처럼 오래 사는 쓰레드에서 인스턴스를 버릴 때는 각 쓰레드에서 clearFrontCache를 부르면 바로 놓아준다.
+ */
+public class StripedInterner {
+
+    private final ConcurrentMap<String, String>[] stripes;
+    private final int stripeMask;
+    private final int frontCacheMask;
+    private final ThreadLocal<String[]> frontCache;
+
+    public StripedInterner() {
+        this(Runtime.getRuntime().availableProcessors() * 4, 256);
+    }
+
+    // stripes와 frontCacheSize는 2의 거듭제곱으로 올림한다
+    public StripedInterner(int stripes, int frontCacheSize) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException(stripes + " <= 0");
+        }
+        if (frontCacheSize <= 0) {
+            throw new IllegalArgumentException(frontCacheSize + " <= 0");
+        }
+        int stripeCount = powerOfTwo(stripes);
+        int frontCacheLength = powerOfTwo(frontCacheSize);
+
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        ConcurrentMap<String, String>[] maps = new ConcurrentMap[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            maps[i] = new ConcurrentHashMap<>();
+        }
+        this.stripes = maps;
+        this.stripeMask = stripeCount - 1;
+        this.frontCacheMask = frontCacheLength - 1;
+        this.frontCache = ThreadLocal.withInitial(() -> new String[frontCacheLength]);
+    }
+
+    private static int powerOfTwo(int n) {
+        return n == 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    public String intern(String s) {
+        int h = spread(s.hashCode());
+        String[] front = frontCache.get();
+        int slot = h & frontCacheMask;
+        String cached = front[slot];
+        if (cached != null && (cached == s || cached.equals(s))) {
+            return cached; // 쓰레드 자신의 배열만 읽었다
+        }
+
+        // 앞단 캐시와 다른 비트로 stripe를 고른다. 같은 비트를 쓰면 stripe 하나에 같은 슬롯끼리만 몰린다
+        ConcurrentMap<String, String> stripe = stripes[(h >>> 16) & stripeMask];
+        String result = stripe.get(s);
+        if (result == null) {
+            result = stripe.putIfAbsent(s, s);
+            if (result == null) {
+                result = s;
+            }
+        }
+        front[slot] = result; // 충돌하면 이전 값을 그냥 덮어쓴다
+        return result;
+    }
+
+    // 호출한 쓰레드의 앞단 캐시를 버린다. 다음 intern에서 빈 배열로 다시 만든다
+    public void clearFrontCache() {
+        frontCache.remove();
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentMap<String, String> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 15);
+    }
+}
@@ -0,0 +1,116 @@
+package chapter11.item84;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SlowCountDownLatch, ParkingCountDownLatch, java.util.concurrent.CountDownLatch를 대기 쓰레드 수를 늘려가며 비교한다.
+ * 대기 쓰레드들이 WAIT_MILLIS 동안 기다리는 사이 쓴 CPU 시간과, countDown 후 깨어나기까지 걸린 시간을 출력한다.
+ * 첫번째 인자로 최대 대기 쓰레드 수를 줄 수 있다. (기본 256)
+ */
+public class LatchBenchmarkMain {
+
+    private static final long WAIT_MILLIS = 100;
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxWaiters = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+
+        System.out.println("latch,waiters,cpu(ms),avgWakeUp(us),maxWakeUp(us)");
+        for (int waiters = 1; waiters <= maxWaiters; waiters <<= 1) {
+            run("SlowCountDownLatch", waiters, () -> {
+                SlowCountDownLatch latch = new SlowCountDownLatch(1);
+                return new Latch() {
+                    public void await() {
+                        latch.await();
+                    }
+
+                    public void countDown() {
+                        latch.countDown();
+                    }
+                };
+            });
+            run("ParkingCountDownLatch", waiters, () -> {
+                ParkingCountDownLatch latch = new ParkingCountDownLatch(1);
+                return new Latch() {
+                    public void await() throws InterruptedException {
+                        latch.await();
+                    }
+
+                    public void countDown() {
+                        latch.countDown();
+                    }
+                };
+            });
+            run("CountDownLatch", waiters, () -> {
+                CountDownLatch latch = new CountDownLatch(1);
+                return new Latch() {
+                    public void await() throws InterruptedException {
+                        latch.await();
+                    }
+
+                    public void countDown() {
+                        latch.countDown();
+                    }
+                };
+            });
+        }
+    }
+
+    private static void run(String name, int waiters, LatchFactory factory) throws InterruptedException {
+        Latch latch = factory.create();
+        CountDownLatch ready = new CountDownLatch(waiters);
+        long[] cpuNanos = new long[waiters];
+        long[] wokeUpAt = new long[waiters];
+        Thread[] threads = new Thread[waiters];
+
+        for (int i = 0; i < waiters; i++) {
+            int index = i;
+            threads[i] = new Thread(() -> {
+                long cpuStart = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+                ready.countDown();
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                wokeUpAt[index] = System.nanoTime();
+                cpuNanos[index] = THREAD_MX_BEAN.getCurrentThreadCpuTime() - cpuStart;
+            });
+            threads[i].start();
+        }
+
+        ready.await();
+        TimeUnit.MILLISECONDS.sleep(WAIT_MILLIS); // 이 동안 대기 쓰레드가 CPU를 얼마나 쓰는지 본다
+        long openedAt = System.nanoTime();
+        latch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long totalCpu = 0;
+        long totalWakeUp = 0;
+        long maxWakeUp = 0;
+        for (int i = 0; i < waiters; i++) {
+            totalCpu += cpuNanos[i];
+            long wakeUp = wokeUpAt[i] - openedAt;
+            totalWakeUp += wakeUp;
+            maxWakeUp = Math.max(maxWakeUp, wakeUp);
+        }
+        System.out.printf("%s,%d,%.2f,%.2f,%.2f%n", name, waiters,
+                totalCpu / 1e6, totalWakeUp / 1e3 / waiters, maxWakeUp / 1e3);
+    }
+
+    private interface Latch {
+        void await() throws InterruptedException;
+
+        void countDown();
+    }
+
+    @FunctionalInterface
+    private interface LatchFactory {
+        Latch create();
+    }
+}
@@ -0,0 +1,117 @@
+package chapter11.item84;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * SlowCountDownLatch를 바쁜 대기 없이 다시 만든 래치.
+ * 카운트는 락 없이 CAS로 줄이고, await는 잠깐 스핀한 뒤에도 열리지 않으면 쓰레드를 park 시킨다.
+ * 스핀 횟수는 최근 스핀이 성공했는지에 따라 늘리거나 줄인다. (단일 코어에서는 스핀하지 않는다)
+ */
+public class ParkingCountDownLatch {
+
+    private static final int MIN_SPINS = 16;
+    private static final int MAX_SPINS = 1 << 12;
+    private static final boolean MULTI_CORE = Runtime.getRuntime().availableProcessors() > 1;
+
+    private final AtomicInteger count;
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+    private volatile int spins = MIN_SPINS;
+
+    public ParkingCountDownLatch(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException(count + " < 0");
+        }
+        this.count = new AtomicInteger(count);
+    }
+
+    public void await() throws InterruptedException {
+        await(0L, false);
+    }
+
+    // 시간 안에 카운트가 0이 되면 true, 시간이 지나면 false를 반환한다
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return await(unit.toNanos(timeout), true);
+    }
+
+    private boolean await(long nanos, boolean timed) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (count.get() == 0 || spinUntilOpen()) {
+            return true;
+        }
+        if (timed && nanos <= 0L) {
+            return false;
+        }
+
+        long deadline = timed ? System.nanoTime() + nanos : 0L;
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+        try {
+            while (count.get() != 0) { // 큐에 넣은 뒤에 다시 확인해야 countDown의 깨우기를 놓치지 않는다
+                if (timed) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0L) {
+                        return false;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                } else {
+                    LockSupport.park(this);
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return true;
+        } finally {
+            waiters.remove(current);
+        }
+    }
+
+    private boolean spinUntilOpen() {
+        if (!MULTI_CORE) {
+            return false;
+        }
+        int limit = spins;
+        for (int i = 0; i < limit; i++) {
+            if (count.get() == 0) {
+                spins = Math.min(limit << 1, MAX_SPINS); // 스핀으로 열렸다면 다음엔 조금 더 기다려본다
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        spins = Math.max(limit >> 1, MIN_SPINS); // 결국 park 해야 했다면 다음엔 덜 스핀한다
+        return false;
+    }
+
+    public void countDown() {
+        while (true) {
+            int c = count.get();
+            if (c == 0) {
+                return;
+            }
+            if (count.compareAndSet(c, c - 1)) {
+                if (c == 1) {
+                    Thread waiter;
+                    while ((waiter = waiters.poll()) != null) {
+                        LockSupport.unpark(waiter);
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + "[Count = " + count.get() + "]";
+    }
+}
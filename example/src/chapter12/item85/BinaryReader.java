@@ -0,0 +1,123 @@
+package chapter12.item85;
+
+import java.io.InvalidObjectException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * BinaryWriter가 쓴 내용을 ByteBuffer에서 바로 읽는다.
+ * readStringSlice는 문자열을 만들지 않고 원본 버퍼를 공유하는 조각(slice)만 돌려주므로 복사가 일어나지 않는다.
+ * 잘못된 입력은 UncheckedIOException(InvalidObjectException)으로 알린다.
+ */
+public final class BinaryReader {
+
+    private ByteBuffer buffer;
+
+    public BinaryReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public BinaryReader reset(ByteBuffer buffer) {
+        this.buffer = buffer;
+        return this;
+    }
+
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    public int readByte() {
+        return buffer.get() & 0xFF;
+    }
+
+    public int readVarInt() {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw invalid("varint is too long");
+    }
+
+    public int readSignedVarInt() {
+        int raw = readVarInt();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public long readVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw invalid("varlong is too long");
+    }
+
+    public String readString() {
+        int length = readStringLength();
+        if (length < 0) {
+            return null;
+        }
+        String s;
+        if (buffer.hasArray()) {
+            s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.duplicate().get(bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buffer.position(buffer.position() + length);
+        return s;
+    }
+
+    // 문자열의 UTF-8 바이트를 가리키는 조각. 원본 버퍼를 다시 쓰기 전까지만 유효하다. null이면 null
+    public ByteBuffer readStringSlice() {
+        int length = readStringLength();
+        if (length < 0) {
+            return null;
+        }
+        ByteBuffer slice = buffer.slice();
+        slice.limit(length);
+        buffer.position(buffer.position() + length);
+        return slice;
+    }
+
+    // BinaryWriter.writeAll로 쓴 원소들을 하나씩 action에 넘긴다. 전체를 모아두지 않는다
+    public <E> int readAll(Codec<E> codec, Consumer<? super E> action) {
+        int total = 0;
+        int count;
+        while ((count = readVarInt()) != 0) {
+            for (int i = 0; i < count; i++) {
+                action.accept(codec.decode(this));
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    // -1이면 null
+    private int readStringLength() {
+        int encoded = readVarInt();
+        int length = encoded - 1;
+        if (length < -1) { // 5바이트 varint가 int 범위를 넘어 음수가 되었다
+            throw invalid("negative string length " + length);
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return length;
+    }
+
+    static UncheckedIOException invalid(String message) {
+        return new UncheckedIOException(new InvalidObjectException(message));
+    }
+}
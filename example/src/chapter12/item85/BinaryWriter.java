@@ -0,0 +1,137 @@
+package chapter12.item85;
+
+import chpater9.item63.StringAssembler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
+
+/**
+ * ByteBuffer에 바로 쓰는 간결한 바이너리 인코더.
+ * 정수는 varint(작은 수일수록 적은 바이트), 문자열은 UTF-8 바이트 길이를 앞에 붙여 쓴다. 문자열도 중간 byte[] 없이 인코딩한다.
+ *
+ * 채널을 함께 주면 버퍼가 차는 대로 채널로 내보내므로 큰 컬렉션도 작은 버퍼 하나로 흘려보낼 수 있다.
+ * (이때 값 하나, 예를 들어 문자열 하나는 버퍼에 한번에 들어가야 한다)
+ */
+public final class BinaryWriter {
+
+    private static final int MAX_VARINT_BYTES = 5;
+    private static final int MAX_VARLONG_BYTES = 10;
+    private static final int STREAM_CHUNK_SIZE = 128;
+
+    private ByteBuffer buffer;
+    private final WritableByteChannel channel;
+
+    public BinaryWriter(ByteBuffer buffer) {
+        this(buffer, null);
+    }
+
+    public BinaryWriter(ByteBuffer buffer, WritableByteChannel channel) {
+        this.buffer = buffer;
+        this.channel = channel;
+    }
+
+    // 같은 BinaryWriter를 다른(또는 비운) 버퍼에 다시 쓴다
+    public BinaryWriter reset(ByteBuffer buffer) {
+        this.buffer = buffer;
+        return this;
+    }
+
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    public BinaryWriter writeByte(int b) {
+        ensure(1);
+        buffer.put((byte) b);
+        return this;
+    }
+
+    // 0 이상의 수에 쓴다. 음수는 항상 5바이트가 된다
+    public BinaryWriter writeVarInt(int value) {
+        ensure(MAX_VARINT_BYTES);
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+        return this;
+    }
+
+    // 음수가 나올 수 있는 수는 지그재그 인코딩으로 절대값이 작으면 짧게 쓴다
+    public BinaryWriter writeSignedVarInt(int value) {
+        return writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public BinaryWriter writeVarLong(long value) {
+        ensure(MAX_VARLONG_BYTES);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+        return this;
+    }
+
+    // null은 길이 0으로, 문자열은 (UTF-8 바이트 수 + 1)을 먼저 쓴다
+    public BinaryWriter writeString(CharSequence s) {
+        if (s == null) {
+            return writeVarInt(0);
+        }
+        int length = StringAssembler.utf8Length(s);
+        ensure(MAX_VARINT_BYTES + length);
+        writeVarInt(length + 1);
+        StringAssembler.writeUtf8(s, buffer);
+        return this;
+    }
+
+    /**
+     * 원소 수를 몰라도 되는 스트리밍 인코딩. 원소를 최대 STREAM_CHUNK_SIZE개씩 (개수, 원소들) 덩어리로 쓰고 0으로 끝낸다.
+     * 덩어리만큼만 원소를 미리 꺼내두므로 전체 컬렉션을 메모리에 올리거나 크기를 먼저 셀 필요가 없다.
+     */
+    @SuppressWarnings("unchecked")
+    public <E> BinaryWriter writeAll(Iterator<? extends E> elements, Codec<E> codec) {
+        Object[] chunk = new Object[STREAM_CHUNK_SIZE];
+        while (elements.hasNext()) {
+            int count = 0;
+            while (count < STREAM_CHUNK_SIZE && elements.hasNext()) {
+                chunk[count++] = elements.next();
+            }
+            writeVarInt(count);
+            for (int i = 0; i < count; i++) {
+                codec.encode((E) chunk[i], this); // chunk에는 E만 넣었다
+                chunk[i] = null;
+            }
+        }
+        return writeVarInt(0);
+    }
+
+    // 채널이 있다면 남은 내용을 모두 내보낸다
+    public void flush() {
+        if (channel == null) {
+            return;
+        }
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        if (channel == null || bytes > buffer.capacity()) {
+            throw new BufferOverflowException();
+        }
+        flush();
+    }
+}
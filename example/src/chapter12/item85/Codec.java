@@ -0,0 +1,12 @@
+package chapter12.item85;
+
+/**
+ * 한 타입을 BinaryWriter/BinaryReader로 읽고 쓰는 방법(스키마). 자바 직렬화와 달리 클래스 이름이나
+ * 필드 메타데이터를 쓰지 않고, 읽을 때도 리플렉션 없이 정해진 순서대로 값만 읽는다.
+ */
+public interface Codec<T> {
+
+    void encode(T value, BinaryWriter out);
+
+    T decode(BinaryReader in);
+}
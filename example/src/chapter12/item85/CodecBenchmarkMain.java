@@ -0,0 +1,101 @@
+package chapter12.item85;
+
+import chapter11.item81.ConcurrentBenchmark;
+import chapter2.item1.Person;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Person 하나를 직렬화/역직렬화할 때 자바 직렬화(ObjectOutputStream)와 BinaryWriter/BinaryReader를 비교한다.
+ * 코덱 쪽은 쓰레드마다 버퍼를 하나 두고 재사용하므로 연산당 할당은 결과 객체(Person, String)뿐이다.
+ * 읽을 때는 PersonCodec.UNCACHED를 써서 Person.from 캐시 적중이 아닌 디코딩 비용을 잰다.
+ */
+public class CodecBenchmarkMain {
+
+    private static final int OPERATIONS = 200_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        Person person = Person.from("홍길동", 30, "서울시 성동구 성수동");
+
+        byte[] javaBytes = Item85Main.serialize(person);
+        ByteBuffer[] encoded = new ByteBuffer[concurrency];
+        BinaryWriter[] writers = new BinaryWriter[concurrency];
+        BinaryReader[] readers = new BinaryReader[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            writers[i] = new BinaryWriter(ByteBuffer.allocate(256));
+            PersonCodec.INSTANCE.encode(person, writers[i]);
+            encoded[i] = writers[i].buffer().flip();
+            writers[i] = new BinaryWriter(ByteBuffer.allocate(256));
+            readers[i] = new BinaryReader(encoded[i]);
+        }
+        System.out.println("java serialization : " + javaBytes.length + " bytes, codec : " + encoded[0].remaining() + " bytes");
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        List<ConcurrentBenchmark.Result> results = new ArrayList<>();
+        try {
+            results.add(run(executor, concurrency, "ObjectOutputStream.writeObject",
+                    (thread, i) -> Item85Main.serialize(person)));
+            results.add(run(executor, concurrency, "ObjectInputStream.readObject",
+                    (thread, i) -> readObject(javaBytes)));
+            results.add(run(executor, concurrency, "PersonCodec.encode",
+                    (thread, i) -> {
+                        BinaryWriter writer = writers[thread];
+                        writer.buffer().clear();
+                        PersonCodec.INSTANCE.encode(person, writer);
+                    }));
+            results.add(run(executor, concurrency, "PersonCodec.decode",
+                    (thread, i) -> {
+                        BinaryReader reader = readers[thread];
+                        reader.buffer().rewind();
+                        PersonCodec.UNCACHED.decode(reader);
+                    }));
+        } finally {
+            executor.shutdown();
+        }
+        System.out.print(ConcurrentBenchmark.Result.toCsv(results));
+
+        // 공유 그래프는 역참조로 쓰므로 bomb도 몇 백 바이트에 불과하다. 읽을 때는 깊이 제한으로 바로 거부한다
+        Set<Object> bomb = Item85Main.bombGraph();
+        BinaryWriter writer = new BinaryWriter(ByteBuffer.allocate(4096));
+        NestedSetCodec codec = new NestedSetCodec();
+        codec.encode(bomb, writer);
+        System.out.println("bomb : java serialization " + Item85Main.serialize(bomb).length
+                + " bytes, codec " + writer.buffer().position() + " bytes");
+        try {
+            codec.decode(new BinaryReader(writer.buffer().flip()));
+        } catch (UncheckedIOException e) {
+            System.out.println("bomb 읽기 거부 : " + e.getCause().getMessage());
+        }
+    }
+
+    private static Object readObject(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ConcurrentBenchmark.Result run(ExecutorService executor, int threads, String name,
+                                                  ConcurrentBenchmark.Operation operation) throws InterruptedException {
+        return ConcurrentBenchmark.builder(name, operation)
+                .concurrency(threads)
+                .warmupRounds(3)
+                .measuredRounds(5)
+                .operationsPerThread(OPERATIONS)
+                .build()
+                .run(executor);
+    }
+}
@@ -0,0 +1,182 @@
+package chapter12.item85;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 역직렬화 폭탄(Item85Main.bomb)처럼 작은 입력으로 CPU를 태우는 스트림을 막는 ObjectInputFilter.
+ * 그래프 깊이, 참조 수, 배열 길이, 읽은 바이트 수에 상한을 두고, 허용 목록에 없는 클래스는 거부한다.
+ *
+ * 스트림마다 필터가 처음 호출된 뒤로 쓴 CPU 시간을 재서 예산을 넘기면 그 다음 필터 호출에서 거부한다.
+ * 필터는 객체를 읽을 때만 호출되므로 readObject 안에서 한번에 오래 걸리는 계산(예 : 깊은 HashSet의 hashCode)은
+ * 중간에 끊을 수 없다. 그런 입력은 깊이/참조 수 제한으로 미리 막는다.
+ */
+public final class DeserializationGuard {
+
+    private final long maxDepth;
+    private final long maxReferences;
+    private final long maxArrayLength;
+    private final long maxBytes;
+    private final long cpuBudgetNanos;
+    private final Set<Class<?>> allowedClasses;
+
+    private DeserializationGuard(Builder builder) {
+        this.maxDepth = builder.maxDepth;
+        this.maxReferences = builder.maxReferences;
+        this.maxArrayLength = builder.maxArrayLength;
+        this.maxBytes = builder.maxBytes;
+        this.cpuBudgetNanos = builder.cpuBudget.toNanos();
+        this.allowedClasses = Set.copyOf(builder.allowedClasses);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private long maxDepth = 20;
+        private long maxReferences = 10_000;
+        private long maxArrayLength = 100_000;
+        private long maxBytes = 1 << 20;
+        private Duration cpuBudget = Duration.ofMillis(100);
+        private final Set<Class<?>> allowedClasses = new HashSet<>();
+
+        private Builder() {
+        }
+
+        public Builder maxDepth(long maxDepth) {
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        public Builder maxReferences(long maxReferences) {
+            this.maxReferences = maxReferences;
+            return this;
+        }
+
+        public Builder maxArrayLength(long maxArrayLength) {
+            this.maxArrayLength = maxArrayLength;
+            return this;
+        }
+
+        public Builder maxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        public Builder cpuBudget(Duration cpuBudget) {
+            this.cpuBudget = Objects.requireNonNull(cpuBudget);
+            return this;
+        }
+
+        // 배열은 원소 타입으로 검사한다. 기본 타입과 기본 타입 배열은 따로 허용하지 않아도 된다
+        // HashMap, HashSet은 내부 테이블 크기를 Map.Entry[]로 검사받으므로 Map.Entry도 함께 허용해야 한다
+        public Builder allow(Class<?>... classes) {
+            for (Class<?> c : classes) {
+                allowedClasses.add(Objects.requireNonNull(c));
+            }
+            return this;
+        }
+
+        public DeserializationGuard build() {
+            return new DeserializationGuard(this);
+        }
+    }
+
+    // 필터를 설치한 스트림을 연다. 필터는 스트림마다 새로 만들어 CPU 시간을 따로 잰다
+    public ObjectInputStream open(InputStream in) throws IOException {
+        ObjectInputStream ois = new ObjectInputStream(in);
+        ois.setObjectInputFilter(new StreamFilter());
+        return ois;
+    }
+
+    public <T> T deserialize(byte[] bytes, Class<T> type) throws IOException, ClassNotFoundException {
+        StreamFilter filter = new StreamFilter();
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            ois.setObjectInputFilter(filter);
+            return type.cast(ois.readObject());
+        } catch (InvalidClassException e) {
+            if (filter.rejection == null) {
+                throw e;
+            }
+            InvalidObjectException rejected = new InvalidObjectException("역직렬화 거부 : " + filter.rejection);
+            rejected.initCause(e);
+            throw rejected;
+        }
+    }
+
+    private final class StreamFilter implements ObjectInputFilter {
+
+        private long cpuStartNanos = -1;
+        private String rejection;
+
+        @Override
+        public Status checkInput(FilterInfo info) {
+            String reason = check(info);
+            if (reason == null) {
+                return Status.ALLOWED;
+            }
+            rejection = reason;
+            return Status.REJECTED;
+        }
+
+        private String check(FilterInfo info) {
+            if (info.depth() > maxDepth) {
+                return "depth " + info.depth() + " > " + maxDepth;
+            }
+            if (info.references() > maxReferences) {
+                return "references " + info.references() + " > " + maxReferences;
+            }
+            if (info.arrayLength() > maxArrayLength) {
+                return "array length " + info.arrayLength() + " > " + maxArrayLength;
+            }
+            if (info.streamBytes() > maxBytes) {
+                return "bytes " + info.streamBytes() + " > " + maxBytes;
+            }
+            long elapsed = elapsedCpuNanos();
+            if (elapsed > cpuBudgetNanos) {
+                return "cpu " + elapsed / 1_000_000 + "ms > " + cpuBudgetNanos / 1_000_000 + "ms";
+            }
+            Class<?> serialClass = info.serialClass();
+            if (serialClass != null) {
+                Class<?> elementClass = serialClass;
+                while (elementClass.isArray()) {
+                    elementClass = elementClass.getComponentType();
+                }
+                if (!elementClass.isPrimitive() && !allowedClasses.contains(elementClass)) {
+                    return "class " + serialClass.getName() + " is not allowed";
+                }
+            }
+            return null;
+        }
+
+        private long elapsedCpuNanos() {
+            long now = cpuTimeNanos();
+            if (cpuStartNanos < 0) {
+                cpuStartNanos = now;
+            }
+            return now - cpuStartNanos;
+        }
+    }
+
+    // 쓰레드 CPU 시간을 잴 수 없는 JVM에서는 경과 시간으로 대신한다
+    private static long cpuTimeNanos() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled()) {
+            return threadMXBean.getCurrentThreadCpuTime();
+        }
+        return System.nanoTime();
+    }
+}
@@ -1,15 +1,36 @@
 package chapter12.item85;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 public class Item85Main {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws ClassNotFoundException {
 
+        // 역직렬화 폭탄을 필터 없이 읽으면 hashCode 계산이 끝나지 않는다. 깊이 제한으로 바로 거부한다
+        DeserializationGuard guard = DeserializationGuard.builder()
+                .allow(HashSet.class, String.class, Map.Entry.class) // HashSet은 읽을 때 Map.Entry[] 크기 검사를 거친다
+                .build();
+
+        byte[] bomb = bomb();
+        long start = System.nanoTime();
+        try {
+            guard.deserialize(bomb, Set.class);
+        } catch (IOException e) {
+            System.out.println(e.getMessage() + " (" + (System.nanoTime() - start) / 1_000_000 + "ms)");
+        }
     }
 
     static byte[] bomb() {
+        return serialize(bombGraph());
+    }
+
+    static Set<Object> bombGraph() {
         Set<Object> root = new HashSet<>();
         Set<Object> s1 = root;
         Set<Object> s2 = new HashSet<>();
@@ -25,8 +46,17 @@ public class Item85Main {
             s2 = t2;
         }
 
-        //return serialize(root);
-        return null; // 컴파일에러 방지용 임시 코드
+        return root;
+    }
+
+    static byte[] serialize(Object o) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(o);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return baos.toByteArray();
     }
 
 }
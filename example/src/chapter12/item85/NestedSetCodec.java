@@ -0,0 +1,128 @@
+package chapter12.item85;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Item85Main.bomb이 만드는 것처럼 문자열과 집합이 중첩된 Set<Object>를 위한 코덱.
+ * 이미 쓴 집합은 번호(역참조)로만 쓰므로 공유가 많은 그래프도 크기가 선형으로 유지된다.
+ *
+ * 읽을 때는 HashSet에 넣으면서 hashCode를 계산하므로 깊은 공유 그래프는 자바 직렬화처럼 지수 시간이 걸린다.
+ * 그래서 읽기에는 깊이 제한을 두고, 넘으면 바로 예외를 던진다. 역참조로 붙이는 집합도 먼저 읽을 때 기록한 높이만큼
+ * 깊이에 더하므로 역참조를 이어 붙여도 제한을 넘을 수 없다. 아직 다 읽지 않은 집합(자기 자신, 조상)을 가리키는 역참조는 거부한다.
+ */
+public final class NestedSetCodec implements Codec<Set<Object>> {
+
+    private static final int TAG_STRING = 0;
+    private static final int TAG_SET = 1;
+    private static final int TAG_REFERENCE = 2;
+
+    private static final int DEFAULT_MAX_DEPTH = 20;
+    private static final int UNFINISHED = 0;
+
+    private final int maxDepth;
+
+    public NestedSetCodec() {
+        this(DEFAULT_MAX_DEPTH);
+    }
+
+    public NestedSetCodec(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public void encode(Set<Object> set, BinaryWriter out) {
+        writeSet(set, out, new IdentityHashMap<>());
+    }
+
+    private void writeSet(Set<?> set, BinaryWriter out, Map<Object, Integer> ids) {
+        ids.put(set, ids.size());
+        out.writeVarInt(set.size());
+        for (Object element : set) {
+            if (element instanceof String) {
+                out.writeByte(TAG_STRING).writeString((String) element);
+            } else if (element instanceof Set) {
+                Integer id = ids.get(element);
+                if (id != null) {
+                    out.writeByte(TAG_REFERENCE).writeVarInt(id);
+                } else {
+                    out.writeByte(TAG_SET);
+                    writeSet((Set<?>) element, out, ids);
+                }
+            } else {
+                throw new IllegalArgumentException("unsupported element : " + element);
+            }
+        }
+    }
+
+    @Override
+    public Set<Object> decode(BinaryReader in) {
+        Decoding decoding = new Decoding();
+        return decoding.sets.get(readSet(in, decoding, 1));
+    }
+
+    // depth는 지금 읽는 집합의 깊이다. 역참조로 붙이는 집합도 그 높이만큼 깊이에 더해서 검사한다
+    private int readSet(BinaryReader in, Decoding decoding, int depth) {
+        if (depth > maxDepth) {
+            throw BinaryReader.invalid("depth " + depth + " > " + maxDepth);
+        }
+        int size = in.readVarInt();
+        if (size < 0 || size > in.buffer().remaining()) { // 원소마다 최소 1바이트는 있어야 한다
+            throw BinaryReader.invalid("set size " + size + " exceeds remaining bytes");
+        }
+        Set<Object> set = new HashSet<>();
+        int id = decoding.start(set);
+        int height = 1;
+        for (int i = 0; i < size; i++) {
+            int tag = in.readByte();
+            switch (tag) {
+                case TAG_STRING:
+                    set.add(in.readString());
+                    break;
+                case TAG_SET: {
+                    int child = readSet(in, decoding, depth + 1);
+                    height = Math.max(height, decoding.heights.get(child) + 1);
+                    set.add(decoding.sets.get(child));
+                    break;
+                }
+                case TAG_REFERENCE: {
+                    int child = in.readVarInt();
+                    if (child < 0 || child >= decoding.sets.size()) {
+                        throw BinaryReader.invalid("unknown reference " + child);
+                    }
+                    int childHeight = decoding.heights.get(child);
+                    if (childHeight == UNFINISHED) { // 자기 자신이나 아직 채우는 중인 조상을 넣으면 hashCode가 끝나지 않는다
+                        throw BinaryReader.invalid("reference " + child + " to an unfinished set");
+                    }
+                    if (depth + childHeight > maxDepth) {
+                        throw BinaryReader.invalid("depth " + (depth + childHeight) + " > " + maxDepth);
+                    }
+                    height = Math.max(height, childHeight + 1);
+                    set.add(decoding.sets.get(child));
+                    break;
+                }
+                default:
+                    throw BinaryReader.invalid("unknown tag " + tag);
+            }
+        }
+        decoding.heights.set(id, height);
+        return id;
+    }
+
+    // 읽은 집합과 그 높이(문자열만 가진 집합이 1). 다 읽기 전에는 UNFINISHED
+    private static final class Decoding {
+
+        private final List<Set<Object>> sets = new ArrayList<>();
+        private final List<Integer> heights = new ArrayList<>();
+
+        int start(Set<Object> set) {
+            sets.add(set);
+            heights.add(UNFINISHED);
+            return sets.size() - 1;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package chapter12.item85;
+
+import chapter2.item1.Person;
+
+/**
+ * Person을 (이름, 나이, 주소) 순서로 쓴다. 나이는 varint라 대부분 1바이트다.
+ */
+public final class PersonCodec implements Codec<Person> {
+
+    public static final PersonCodec INSTANCE = new PersonCodec(true);
+
+    // Person.from의 캐시를 거치지 않고 매번 새 Person을 만든다. 디코딩 자체의 비용을 잴 때 쓴다
+    public static final PersonCodec UNCACHED = new PersonCodec(false);
+
+    private final boolean cached;
+
+    private PersonCodec(boolean cached) {
+        this.cached = cached;
+    }
+
+    @Override
+    public void encode(Person person, BinaryWriter out) {
+        out.writeString(person.getName())
+                .writeSignedVarInt(person.getAge())
+                .writeString(person.getAddress());
+    }
+
+    @Override
+    public Person decode(BinaryReader in) {
+        String name = in.readString();
+        int age = in.readSignedVarInt();
+        String address = in.readString();
+        return cached ? Person.from(name, age, address) : new Person(name, age, address);
+    }
+}
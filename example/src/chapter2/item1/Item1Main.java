@@ -14,6 +14,8 @@ public class Item1Main {
         // 불변 클래스에 대해서 미리 인스턴스를 만들어 두는 작업을 하지 않아도 된다. 필요할떄 만들면 됨!! - Boolean.valueOf를 참고 - 플라이웨이트 패턴 참고
         // Compile 시점에 만들어진 불변 인스턴스를 반환하는식?! - 계산기 예제 코드...
         Person person = Person.from("Joey", 30, "Seoul");
+        System.out.println(person == Person.from("Joey", 30, "Seoul")); // true - 같은 값이면 같은 인스턴스
+        System.out.println(Person.cache());
 
         // 세번째 - 반환 타입의 하위 타입 객체를 반환할 수 있는 능력이 있다.
         // List.of 메소드는 파라미터의 타임에 따라 반환되는 타입이 달라진다. List.of 메소드가 타입 제어권을 가진다.
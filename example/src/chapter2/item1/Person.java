@@ -1,13 +1,20 @@
 package chapter2.item1;
 
-public class Person {
+import java.io.Serializable;
+import java.util.Objects;
 
-    private String name;
-    private int age;
-    private String address;
+/**
+ * 불변 클래스. 값이 같으면 Person.from이 같은 인스턴스를 돌려줄 수 있다.
+ */
+public final class Person implements Serializable {
 
-    public Person() {
-    }
+    private static final long serialVersionUID = 1L;
+
+    private static final PersonCache CACHE = new PersonCache(1 << 8); // 예제용 작은 기본 캐시. 더 크게 쓰려면 PersonCache를 직접 만든다
+
+    private final String name;
+    private final int age;
+    private final String address;
 
     /**
      * 비추
@@ -23,28 +30,68 @@ public class Person {
      */
     // 첫번째 장점 - 인스턴스 생생 메소드가 이름을 가질 수 있다.
     // 정적 팩터리 메소드를 통해 인스턴스 생성에 대한 내용을 메소드 명으로 설명 할수 있다!!!
+    // 두번째 장점 - 호출될 때마다 인스턴스를 새로 생성하지 않아도 된다. 같은 값이면 캐시에 있는 인스턴스를 돌려준다
     public static Person from(String name, int age, String address) {
+        return CACHE.get(name, age, address);
+    }
 
-        Person person = new Person();
+    public static Person createZeroAgePerson(String name, String address) {
+        return from(name, 0, address);
+    }
 
-        person.name = name;
-        person.age = age;
-        person.address = address;
+    public static PersonCache cache() {
+        return CACHE;
+    }
 
-        return person;
+    public String getName() {
+        return name;
     }
 
-    public static Person createZeroAgePerson(String name, String address) {
+    public int getAge() {
+        return age;
+    }
 
-        Person person = new Person();
+    public String getAddress() {
+        return address;
+    }
+
+    boolean matches(String name, int age, String address) {
+        return this.age == age && Objects.equals(this.name, name) && Objects.equals(this.address, address);
+    }
+
+    // 캐시에서 필드만으로 해시를 계산할 수 있도록 hashCode와 같은 식을 쓴다
+    static int hash(String name, int age, String address) {
+        int result = Objects.hashCode(name);
+        result = 31 * result + age;
+        result = 31 * result + Objects.hashCode(address);
+        return result;
+    }
 
-        person.name = name;
-        person.age = 0;
-        person.address = address;
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Person)) {
+            return false;
+        }
+        Person person = (Person) o;
+        return matches(person.name, person.age, person.address);
+    }
 
-        return person;
+    @Override
+    public int hashCode() {
+        return hash(name, age, address);
+    }
 
+    @Override
+    public String toString() {
+        return "Person{name='" + name + "', age=" + age + ", address='" + address + "'}";
     }
 
+    // 역직렬화로 만들어진 인스턴스도 캐시의 인스턴스로 바꿔서 플라이웨이트를 유지한다
+    private Object readResolve() {
+        return from(name, age, address);
+    }
 
 }
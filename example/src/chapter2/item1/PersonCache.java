@@ -0,0 +1,100 @@
+package chapter2.item1;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Person.from 뒤에 있는 플라이웨이트 캐시. Boolean.valueOf처럼 같은 값이면 같은 인스턴스를 돌려준다.
+ *
+ * 필드 값으로 바로 해시를 계산해 고정 크기 배열(direct-mapped)에서 찾으므로 적중할 때는 객체를 하나도 만들지 않는다.
+ * 같은 칸에 다른 값이 들어오면 덮어쓰므로(교체) 크기는 capacity를 넘지 않는다.
+ * 놓쳤을 때 만드는 Person의 이름/주소도 같은 방식의 작은 문자열 배열로 정규화해서, 캐시에서 밀려난 Person끼리도 문자열은 공유한다.
+ *
+ * Person.from은 작은 기본 캐시를 쓴다. 레코드가 많아서 더 큰 캐시가 필요하면 직접 만들어서 get을 부른다.
+ *
+ * Person은 final 필드만 가진 불변 객체라 배열 칸을 동기화 없이 읽고 써도 안전하다. 최악의 경우 같은 값을 두번 만들 뿐이다.
+ */
+public final class PersonCache {
+
+    private final Person[] slots;
+    private final int mask;
+    private final String[] strings; // 이름과 주소를 함께 담는다
+    private final int stringMask;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public PersonCache(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two : " + capacity);
+        }
+        this.slots = new Person[capacity];
+        this.mask = capacity - 1;
+        this.strings = new String[capacity * 2];
+        this.stringMask = capacity * 2 - 1;
+    }
+
+    public Person get(String name, int age, String address) {
+        int index = index(name, age, address);
+        Person cached = slots[index];
+        if (cached != null && cached.matches(name, age, address)) {
+            hitCount.increment();
+            return cached;
+        }
+        missCount.increment();
+        if (cached != null) {
+            evictionCount.increment();
+        }
+        Person created = new Person(intern(name), age, intern(address));
+        slots[index] = created;
+        return created;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public double hitRate() {
+        long hits = hitCount.sum();
+        long total = hits + missCount.sum();
+        return total == 0 ? 1.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "PersonCache[capacity=" + capacity() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount() + "]";
+    }
+
+    // Person 칸과 같이 덮어쓰는 방식이라 크기가 고정된다. String도 불변이라 동기화 없이 읽고 써도 된다
+    private String intern(String s) {
+        if (s == null) {
+            return null;
+        }
+        int h = s.hashCode();
+        int index = (h ^ (h >>> 16)) & stringMask;
+        String cached = strings[index];
+        if (s.equals(cached)) {
+            return cached;
+        }
+        strings[index] = s;
+        return s;
+    }
+
+    private int index(String name, int age, String address) {
+        int h = Person.hash(name, age, address);
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,325 @@
+package chapter2.item1;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * 많은 Person을 객체 대신 열(column) 배열로 저장한다. (structure of arrays)
+ * 나이는 int[]에, 이름과 주소는 사전(dictionary)에 한번만 저장하고 행에는 int 코드만 둔다.
+ * 행 하나는 12바이트에 사전 항목을 나눠 가지므로, 객체 헤더와 참조가 붙는 Person 하나(24바이트 + 문자열)보다 훨씬 작다.
+ *
+ * 필터는 조건에 맞는 행 번호를 담은 선택 벡터(int[])를 돌려주고, 집계 함수는 선택 벡터나 전체 열을 받는다.
+ * 루프 안에 분기가 없도록 작성해서 JIT이 언롤링/벡터화하기 좋다.
+ */
+public final class PersonTable {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private int[] ages;
+    private int[] nameCodes;
+    private int[] addressCodes;
+    private int size;
+
+    private final Dictionary names = new Dictionary();
+    private final Dictionary addresses = new Dictionary();
+
+    public PersonTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PersonTable(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity : " + initialCapacity);
+        }
+        this.ages = new int[initialCapacity];
+        this.nameCodes = new int[initialCapacity];
+        this.addressCodes = new int[initialCapacity];
+    }
+
+    public int add(String name, int age, String address) {
+        if (size == ages.length) {
+            grow(size + 1);
+        }
+        ages[size] = age;
+        nameCodes[size] = names.encode(name);
+        addressCodes[size] = addresses.encode(address);
+        return size++;
+    }
+
+    public int add(Person person) {
+        return add(person.getName(), person.getAge(), person.getAddress());
+    }
+
+    public void addAll(Iterable<Person> persons) {
+        for (Person person : persons) {
+            add(person);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getAge(int row) {
+        return ages[checkRow(row)];
+    }
+
+    public String getName(int row) {
+        return names.decode(nameCodes[checkRow(row)]);
+    }
+
+    public String getAddress(int row) {
+        return addresses.decode(addressCodes[checkRow(row)]);
+    }
+
+    // 행을 Person으로 꺼낸다. Person.from을 거치므로 같은 값이면 같은 인스턴스다
+    public Person get(int row) {
+        return Person.from(getName(row), getAge(row), getAddress(row));
+    }
+
+    // 행 번호만 바꿔가며 재사용하는 읽기 전용 뷰. 스캔 중에 객체를 만들지 않는다
+    public Row row(int row) {
+        return new Row().moveTo(row);
+    }
+
+    public int[] filterAge(IntPredicate predicate) {
+        int[] selection = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            selection[count] = i;
+            count += predicate.test(ages[i]) ? 1 : 0;
+        }
+        return Arrays.copyOf(selection, count);
+    }
+
+    // min 이상 max 이하. 분기 대신 비교 결과를 더해서 선택 벡터를 채운다
+    public int[] filterAgeBetween(int min, int max) {
+        int[] ages = this.ages;
+        int[] selection = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int age = ages[i];
+            selection[count] = i;
+            count += (age >= min & age <= max) ? 1 : 0;
+        }
+        return Arrays.copyOf(selection, count);
+    }
+
+    // 문자열 비교는 사전에서 한번만 하고 열에서는 int 코드만 비교한다
+    public int[] filterName(String name) {
+        return filterCode(nameCodes, names.codeOf(name));
+    }
+
+    public int[] filterAddress(String address) {
+        return filterCode(addressCodes, addresses.codeOf(address));
+    }
+
+    private int[] filterCode(int[] codes, int code) {
+        if (code < 0) {
+            return new int[0];
+        }
+        int[] selection = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            selection[count] = i;
+            count += codes[i] == code ? 1 : 0;
+        }
+        return Arrays.copyOf(selection, count);
+    }
+
+    public long sumAge() {
+        int[] ages = this.ages;
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += ages[i];
+        }
+        return sum;
+    }
+
+    public long sumAge(int[] selection) {
+        int[] ages = this.ages;
+        long sum = 0;
+        for (int row : selection) {
+            sum += ages[row];
+        }
+        return sum;
+    }
+
+    public double averageAge() {
+        return size == 0 ? 0 : (double) sumAge() / size;
+    }
+
+    public double averageAge(int[] selection) {
+        return selection.length == 0 ? 0 : (double) sumAge(selection) / selection.length;
+    }
+
+    // 주소별 행 수. 사전 코드를 배열 인덱스로 그대로 써서 해시 조회 없이 센다
+    public Map<String, Integer> countByAddress() {
+        int[] counts = new int[addresses.size()];
+        for (int i = 0; i < size; i++) {
+            counts[addressCodes[i]]++;
+        }
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            result.put(addresses.decode(code), counts[code]);
+        }
+        return result;
+    }
+
+    public int distinctNames() {
+        return names.size();
+    }
+
+    public int distinctAddresses() {
+        return addresses.size();
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+        }
+        return row;
+    }
+
+    private void grow(int minCapacity) {
+        int newCapacity = Math.max(minCapacity, ages.length + (ages.length >> 1) + 1);
+        ages = Arrays.copyOf(ages, newCapacity);
+        nameCodes = Arrays.copyOf(nameCodes, newCapacity);
+        addressCodes = Arrays.copyOf(addressCodes, newCapacity);
+    }
+
+    /**
+     * 한 행을 가리키는 플라이웨이트. moveTo로 가리키는 행만 바꾼다.
+     */
+    public final class Row {
+
+        private int row;
+
+        private Row() {
+        }
+
+        public Row moveTo(int row) {
+            this.row = checkRow(row);
+            return this;
+        }
+
+        public int index() {
+            return row;
+        }
+
+        public String getName() {
+            return names.decode(nameCodes[row]);
+        }
+
+        public int getAge() {
+            return ages[row];
+        }
+
+        public String getAddress() {
+            return addresses.decode(addressCodes[row]);
+        }
+
+        public Person toPerson() {
+            return Person.from(getName(), getAge(), getAddress());
+        }
+
+        @Override
+        public String toString() {
+            return "Row{" + row + ", name='" + getName() + "', age=" + getAge() + ", address='" + getAddress() + "'}";
+        }
+    }
+
+    // 문자열 <-> 코드. 코드는 0부터 처음 나온 순서대로 붙인다. null도 값 하나로 취급한다
+    // Integer 박싱 없이 (코드 + 1)을 담는 개방 주소법 해시 테이블을 쓴다. 0은 빈 칸이다
+    private static final class Dictionary {
+
+        private static final int NULL_CODE_UNSET = -1;
+
+        private String[] values = new String[16];
+        private int[] table = new int[32];
+        private int shift = 32 - 5; // 곱셈 해시의 상위 비트를 칸 번호로 쓴다 (table.length = 1 << (32 - shift))
+        private int size;
+        private int nullCode = NULL_CODE_UNSET;
+
+        int encode(String value) {
+            if (value == null) {
+                if (nullCode == NULL_CODE_UNSET) {
+                    nullCode = append(null);
+                }
+                return nullCode;
+            }
+            int mask = table.length - 1;
+            for (int slot = slot(value.hashCode(), shift); ; slot = (slot + 1) & mask) {
+                int entry = table[slot];
+                if (entry == 0) {
+                    int code = append(value);
+                    table[slot] = code + 1;
+                    if (size * 2 > table.length) {
+                        rehash();
+                    }
+                    return code;
+                }
+                String existing = values[entry - 1];
+                if (existing == value || value.equals(existing)) { // 같은 인스턴스가 반복되는 경우가 많다
+                    return entry - 1;
+                }
+            }
+        }
+
+        int codeOf(String value) {
+            if (value == null) {
+                return nullCode;
+            }
+            int mask = table.length - 1;
+            for (int slot = slot(value.hashCode(), shift); ; slot = (slot + 1) & mask) {
+                int entry = table[slot];
+                if (entry == 0) {
+                    return -1;
+                }
+                if (value.equals(values[entry - 1])) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        String decode(int code) {
+            return values[code];
+        }
+
+        int size() {
+            return size;
+        }
+
+        private int append(String value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size] = value;
+            return size++;
+        }
+
+        private void rehash() {
+            int[] newTable = new int[table.length * 2];
+            int mask = newTable.length - 1;
+            shift--;
+            for (int code = 0; code < size; code++) {
+                String value = values[code];
+                if (value == null) {
+                    continue;
+                }
+                int slot = slot(value.hashCode(), shift);
+                while (newTable[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                newTable[slot] = code + 1;
+            }
+            table = newTable;
+        }
+
+        private static int slot(int h, int shift) {
+            return (h * 0x9E3779B9) >>> shift;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package chapter2.item1;
+
+import chapter11.item81.ConcurrentBenchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 같은 레코드를 List<Person>과 PersonTable에 적재하고 나이 범위로 스캔하는 시간을 비교한다.
+ * 적재는 둘 다 같은 원본 열(이름/나이/주소 배열)에서 시작한다. Person은 캐시를 거치지 않도록 new로 만든다.
+ */
+public class PersonTableBenchmarkMain {
+
+    private static final int ROWS = 1_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        Random random = new Random(42);
+        String[] names = new String[10_000];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "name-" + i;
+        }
+        String[] addresses = new String[500];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = "address-" + i;
+        }
+        String[] rowNames = new String[ROWS];
+        int[] rowAges = new int[ROWS];
+        String[] rowAddresses = new String[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            rowNames[i] = names[random.nextInt(names.length)];
+            rowAges[i] = random.nextInt(100);
+            rowAddresses[i] = addresses[random.nextInt(addresses.length)];
+        }
+        List<Person> persons = new ArrayList<>(ROWS);
+        PersonTable table = new PersonTable(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            persons.add(new Person(rowNames[i], rowAges[i], rowAddresses[i]));
+            table.add(rowNames[i], rowAges[i], rowAddresses[i]);
+        }
+        System.out.println(table.size() + " rows, " + table.distinctNames() + " names, "
+                + table.distinctAddresses() + " addresses");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<ConcurrentBenchmark.Result> results = new ArrayList<>();
+        long[] sink = new long[1];
+        try {
+            results.add(run(executor, "List<Person> load", (thread, i) -> {
+                List<Person> loaded = new ArrayList<>(ROWS);
+                for (int row = 0; row < ROWS; row++) {
+                    loaded.add(new Person(rowNames[row], rowAges[row], rowAddresses[row]));
+                }
+                sink[0] += loaded.size();
+            }));
+            results.add(run(executor, "PersonTable load", (thread, i) -> {
+                PersonTable loaded = new PersonTable(ROWS);
+                for (int row = 0; row < ROWS; row++) {
+                    loaded.add(rowNames[row], rowAges[row], rowAddresses[row]);
+                }
+                sink[0] += loaded.size();
+            }));
+            results.add(run(executor, "List<Person> age 20-29 average", (thread, i) -> {
+                long sum = 0;
+                int count = 0;
+                for (Person person : persons) {
+                    int age = person.getAge();
+                    if (age >= 20 && age <= 29) {
+                        sum += age;
+                        count++;
+                    }
+                }
+                sink[0] += sum / Math.max(count, 1);
+            }));
+            results.add(run(executor, "PersonTable age 20-29 average", (thread, i) ->
+                    sink[0] += (long) table.averageAge(table.filterAgeBetween(20, 29))));
+        } finally {
+            executor.shutdown();
+        }
+        System.out.print(ConcurrentBenchmark.Result.toCsv(results));
+        System.err.println(sink[0]);
+    }
+
+    private static ConcurrentBenchmark.Result run(ExecutorService executor, String name,
+                                                  ConcurrentBenchmark.Operation operation) throws InterruptedException {
+        return ConcurrentBenchmark.builder(name, operation)
+                .concurrency(1)
+                .warmupRounds(3)
+                .measuredRounds(5)
+                .operationsPerThread(10)
+                .build()
+                .run(executor);
+    }
+}
@@ -0,0 +1,174 @@
+package chapter5.item26;
+
+import java.lang.reflect.Modifier;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.UnaryOperator;
+
+/**
+ * 원소 타입을 넣는 시점에 검사하는 List 래퍼. 로 타입으로 잘못된 원소가 들어오면 나중이 아니라 그 자리에서 ClassCastException이 난다.
+ *
+ * Collections.checkedList는 add마다 Class.cast를 부르지만 여기서는 검사를 최대한 싸게 만든다.
+ * - final 타입(String, Integer 등)은 getClass() == type 비교 하나로 끝난다. JIT이 클래스 포인터 비교로 인라인한다.
+ * - final이 아니면 마지막으로 통과한 구체 클래스를 기억해두고 같으면 isInstance를 건너뛴다.
+ * - addAll은 원소를 배열로 한번에 검사한 뒤 한번에 넣는다. 같은 타입(또는 하위 타입)의 CheckedList에서 오면 검사하지 않는다.
+ */
+public final class CheckedList<E> extends AbstractList<E> implements RandomAccess {
+
+    private final List<E> list;
+    private final Class<E> type;
+    private final boolean exact; // type이 final이라 getClass() 비교만으로 충분하다
+    private final boolean unchecked; // Object 타입은 검사할 것이 없다
+    private Class<?> acceptedClass; // 마지막으로 통과한 구체 클래스. 처음에는 type
+
+    private CheckedList(List<E> list, Class<E> type) {
+        if (type.isPrimitive()) { // 원소는 항상 객체라 기본 타입 클래스와 같을 수 없다
+            throw new IllegalArgumentException("primitive element type : " + type);
+        }
+        this.list = list;
+        this.type = type;
+        // 배열 클래스는 항상 final이지만 Integer[]가 Number[]에 들어갈 수 있으므로 isInstance로 검사해야 한다
+        this.exact = Modifier.isFinal(type.getModifiers()) && !type.isArray();
+        this.unchecked = type == Object.class;
+        this.acceptedClass = type;
+    }
+
+    public static <E> CheckedList<E> of(Class<E> type) {
+        return new CheckedList<>(new ArrayList<>(), type);
+    }
+
+    // 이미 들어 있는 원소도 한번 검사한다. 래핑 전에 오염되었다면 여기서 바로 알 수 있다
+    public static <E> CheckedList<E> wrap(List<E> list, Class<E> type) {
+        CheckedList<E> checked = new CheckedList<>(list, type);
+        for (Object o : list) {
+            checked.typeCheck(o);
+        }
+        return checked;
+    }
+
+    public Class<E> elementType() {
+        return type;
+    }
+
+    @Override
+    public E get(int index) {
+        return list.get(index);
+    }
+
+    @Override
+    public int size() {
+        return list.size();
+    }
+
+    // 구조가 바뀌는 연산은 modCount를 올려서 AbstractList의 iterator가 동시 수정을 감지하게 한다
+    @Override
+    public boolean add(E e) {
+        boolean added = list.add(typeCheck(e));
+        modCount++;
+        return added;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        list.add(index, typeCheck(element));
+        modCount++;
+    }
+
+    @Override
+    public E set(int index, E element) {
+        return list.set(index, typeCheck(element));
+    }
+
+    @Override
+    public E remove(int index) {
+        E removed = list.remove(index);
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        list.clear();
+        modCount++;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        boolean added = list.addAll(checkedCopy(c));
+        modCount++;
+        return added;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> c) {
+        boolean added = list.addAll(index, checkedCopy(c));
+        modCount++;
+        return added;
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<E> operator) {
+        list.replaceAll(e -> typeCheck(operator.apply(e)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private E typeCheck(Object o) {
+        if (unchecked || o == null || o.getClass() == acceptedClass) {
+            return (E) o;
+        }
+        return slowTypeCheck(o);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E slowTypeCheck(Object o) {
+        Class<?> c = o.getClass();
+        if (!exact && type.isInstance(o)) {
+            acceptedClass = c; // 다음 원소도 같은 클래스일 가능성이 높다
+            return (E) o;
+        }
+        throw new ClassCastException("Attempt to insert " + c + " element into list with element type " + type);
+    }
+
+    // 원본이 검사 도중에 바뀌지 않도록 배열로 복사한 뒤 검사하고, 그 배열을 다시 복사하지 않고 넣는다
+    private Collection<? extends E> checkedCopy(Collection<? extends E> c) {
+        if (c instanceof CheckedList && type.isAssignableFrom(((CheckedList<?>) c).type)) {
+            return c; // 이미 같은 타입 또는 하위 타입으로 검사된 원소들이다
+        }
+        Object[] elements = c.toArray();
+        if (!unchecked) {
+            for (Object o : elements) {
+                typeCheck(o);
+            }
+        }
+        return new CheckedArray<>(elements);
+    }
+
+    // 검사를 마친 배열. toArray가 복사 없이 배열을 그대로 돌려주므로 ArrayList.addAll의 복사가 한번으로 끝난다
+    private static final class CheckedArray<E> extends AbstractList<E> implements RandomAccess {
+
+        private final Object[] elements;
+
+        CheckedArray(Object[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            return (E) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+
+        @Override
+        public Object[] toArray() {
+            return elements;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package chapter5.item26;
+
+import chapter11.item79.IntObservableSet;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 두 집합의 공통 원소 수를 센다. 입력의 종류와 크기에 따라 방법을 고른다.
+ *
+ * - 일반 Set : 작은 쪽을 돌면서 큰 쪽의 contains를 부른다. 작은 쪽이 크면 병렬 스트림(fork-join)으로 나눈다.
+ * - 비교자가 같은 SortedSet : 크기가 비슷하면 두 반복자를 함께 전진시키는 병합, 크게 차이나면 작은 쪽을 돌며 탐색한다.
+ * - 정렬된 int[] : 병합 또는 갤로핑(지수 탐색 + 이진 탐색). 크면 구간을 나눠 fork-join으로 센다.
+ * - long[] 비트맵 : 워드 단위 AND 후 bitCount.
+ * - BitSet : 복사하지 않고 원소가 적은 쪽의 켜진 비트를 따라가며 다른 쪽을 확인한다.
+ *
+ * Set 명세대로 두 집합 모두 같은 동치 관계(equals)를 쓴다고 가정한다.
+ * 비교자로 동치를 정하는 SortedSet끼리는 비교자가 같을 때만 순서를 바꿔서 센다.
+ */
+public final class Intersections {
+
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int GALLOP_RATIO = 16; // 큰 쪽이 이만큼 크면 갤로핑이 병합보다 빠르다
+    private static final int SEQUENTIAL_CHUNK = 1 << 13;
+
+    private Intersections() {
+    }
+
+    public static int count(Set<?> s1, Set<?> s2) {
+        if (s1 == s2) {
+            return s1.size();
+        }
+        if (s1.isEmpty() || s2.isEmpty()) {
+            return 0;
+        }
+        if (s1 instanceof SortedSet || s2 instanceof SortedSet) {
+            if (s1 instanceof SortedSet && s2 instanceof SortedSet
+                    && Objects.equals(((SortedSet<?>) s1).comparator(), ((SortedSet<?>) s2).comparator())) {
+                return countSorted((SortedSet<?>) s1, (SortedSet<?>) s2);
+            }
+            return probe(s1, s2); // 동치 관계가 다를 수 있으므로 기존처럼 s1을 돌며 s2에 묻는다
+        }
+        if (s1 instanceof IntObservableSet && s2 instanceof IntObservableSet) {
+            return count((IntObservableSet) s1, (IntObservableSet) s2);
+        }
+        // EnumSet도 여기로 온다. 내부 비트 벡터가 공개되어 있지 않지만 contains가 비트 검사 하나라 충분히 싸다
+        return s1.size() <= s2.size() ? probe(s1, s2) : probe(s2, s1);
+    }
+
+    public static int count(IntObservableSet s1, IntObservableSet s2) {
+        IntObservableSet smaller = s1.size() <= s2.size() ? s1 : s2;
+        IntObservableSet larger = smaller == s1 ? s2 : s1;
+        int result = 0;
+        for (PrimitiveIterator.OfInt it = smaller.iterator(); it.hasNext(); ) {
+            if (larger.contains(it.nextInt())) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    // 워드 배열을 복사하지 않는다. 원소가 적은 쪽의 켜진 비트만 따라가며 다른 쪽에 있는지 본다
+    public static int count(BitSet b1, BitSet b2) {
+        BitSet sparser = b1.cardinality() <= b2.cardinality() ? b1 : b2;
+        BitSet other = sparser == b1 ? b2 : b1;
+        int limit = other.length(); // 이 위치부터는 other에 켜진 비트가 없다
+        int result = 0;
+        for (int i = sparser.nextSetBit(0); i >= 0 && i < limit; i = sparser.nextSetBit(i + 1)) {
+            if (other.get(i)) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    // 비트맵 두개의 공통 비트 수. 워드 단위 AND + popcount 루프라 JIT이 벡터화하기 좋다
+    public static int count(long[] words1, long[] words2) {
+        int length = Math.min(words1.length, words2.length);
+        int result = 0;
+        for (int i = 0; i < length; i++) {
+            result += Long.bitCount(words1[i] & words2[i]);
+        }
+        return result;
+    }
+
+    // 중복 없이 오름차순으로 정렬된 두 배열의 공통 원소 수
+    public static int countSorted(int[] a, int[] b) {
+        int[] smaller = a.length <= b.length ? a : b;
+        int[] larger = smaller == a ? b : a;
+        if (smaller.length >= PARALLEL_THRESHOLD) {
+            return ForkJoinPool.commonPool().invoke(new SortedArrayTask(smaller, 0, smaller.length, larger, 0, larger.length));
+        }
+        return countSorted(smaller, 0, smaller.length, larger, 0, larger.length);
+    }
+
+    private static int probe(Set<?> iterated, Set<?> probed) {
+        if (iterated.size() >= PARALLEL_THRESHOLD) {
+            return (int) iterated.parallelStream().filter(probed::contains).count();
+        }
+        int result = 0;
+        for (Object o : iterated) {
+            if (probed.contains(o)) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int countSorted(SortedSet<?> s1, SortedSet<?> s2) {
+        SortedSet<?> smaller = s1.size() <= s2.size() ? s1 : s2;
+        SortedSet<?> larger = smaller == s1 ? s2 : s1;
+        if (larger.size() / GALLOP_RATIO >= smaller.size()) {
+            return probe(smaller, larger); // 트리의 contains는 O(log n)이므로 작은 쪽만 도는 편이 낫다
+        }
+        Comparator<Object> comparator = (Comparator<Object>) s1.comparator();
+        if (comparator == null) {
+            comparator = (x, y) -> ((Comparable<Object>) x).compareTo(y);
+        }
+        Iterator<?> it1 = s1.iterator();
+        Iterator<?> it2 = s2.iterator();
+        Object x = it1.next();
+        Object y = it2.next();
+        int result = 0;
+        while (true) {
+            int c = comparator.compare(x, y);
+            if (c == 0) {
+                result++;
+            }
+            if (c <= 0) {
+                if (!it1.hasNext()) {
+                    return result;
+                }
+                x = it1.next();
+            }
+            if (c >= 0) {
+                if (!it2.hasNext()) {
+                    return result;
+                }
+                y = it2.next();
+            }
+        }
+    }
+
+    // a[aFrom, aTo)와 b[bFrom, bTo)의 공통 원소 수. a가 작은 쪽이다
+    private static int countSorted(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo) {
+        if ((long) (aTo - aFrom) * GALLOP_RATIO <= bTo - bFrom) {
+            return gallop(a, aFrom, aTo, b, bFrom, bTo);
+        }
+        int result = 0;
+        int i = aFrom;
+        int j = bFrom;
+        while (i < aTo && j < bTo) {
+            int x = a[i];
+            int y = b[j];
+            result += x == y ? 1 : 0;
+            i += x <= y ? 1 : 0;
+            j += x >= y ? 1 : 0;
+        }
+        return result;
+    }
+
+    // a의 원소마다 b에서 1, 2, 4, ... 칸씩 건너뛰며 범위를 좁힌 뒤 이진 탐색한다. O(m log(n / m))
+    private static int gallop(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo) {
+        int result = 0;
+        int j = bFrom;
+        for (int i = aFrom; i < aTo && j < bTo; i++) {
+            int x = a[i];
+            if (b[j] < x) {
+                int low = j; // b[low] < x
+                int high = j + 1;
+                int step = 1;
+                while (high < bTo && b[high] < x) {
+                    low = high;
+                    step <<= 1;
+                    high = j + step;
+                }
+                high = Math.min(high, bTo);
+                int found = Arrays.binarySearch(b, low + 1, high, x);
+                j = found >= 0 ? found : -found - 1;
+            }
+            if (j < bTo && b[j] == x) {
+                result++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // a를 반으로 나누고, b는 a의 가운데 값을 기준으로 나눠서 양쪽을 따로 센다
+    private static final class SortedArrayTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] a;
+        private final int aFrom;
+        private final int aTo;
+        private final int[] b;
+        private final int bFrom;
+        private final int bTo;
+
+        SortedArrayTask(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo) {
+            this.a = a;
+            this.aFrom = aFrom;
+            this.aTo = aTo;
+            this.b = b;
+            this.bFrom = bFrom;
+            this.bTo = bTo;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (aTo - aFrom <= SEQUENTIAL_CHUNK || bTo - bFrom <= SEQUENTIAL_CHUNK) {
+                return countSorted(a, aFrom, aTo, b, bFrom, bTo);
+            }
+            int aMid = (aFrom + aTo) >>> 1;
+            int found = Arrays.binarySearch(b, bFrom, bTo, a[aMid]);
+            int bMid = found >= 0 ? found : -found - 1; // b[bMid] >= a[aMid]
+            SortedArrayTask left = new SortedArrayTask(a, aFrom, aMid, b, bFrom, bMid);
+            left.fork();
+            int right = new SortedArrayTask(a, aMid, aTo, b, bMid, bTo).compute();
+            return left.join() + right;
+        }
+    }
+}
@@ -8,6 +8,14 @@ public class Item26Main {
 
     public static void main(String[] args) {
 
+        // 검사하는 리스트는 잘못된 원소가 들어오는 그 자리에서 실패한다
+        List<String> checked = CheckedList.of(String.class);
+        try {
+            unsafeAdd(checked, Integer.valueOf(42));
+        } catch (ClassCastException e) {
+            System.out.println(e.getMessage());
+        }
+
         List<String> strings = new ArrayList<>();
         unsafeAdd(strings, Integer.valueOf(42));
         // Runtime시 에러 발생.
@@ -42,14 +50,9 @@ public class Item26Main {
         return result;
     }
 
+    // 작은 쪽을 돌거나 정렬된 집합은 병합하는 등 입력에 맞는 방법으로 센다
     static int numElementsInCommonWithGeneric(Set<?> s1, Set<?> s2) {
-        int result = 0;
-        for (Object o1 : s1) {
-            if (s2.contains(o1)) {
-                result ++;
-            }
-        }
-        return result;
+        return Intersections.count(s1, s2);
     }
 
 }
@@ -1,9 +1,11 @@
 package chapter5.item27;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.IntFunction;
 
 public class Item27Main {
 
@@ -37,6 +39,13 @@ public class Item27Main {
 
     }
 
+    // 배열 생성자 참조(String[]::new)로 타입을 받으면 비검사 형변환도, 리플렉션도 필요없다
+    public <T> T[] toArray(IntFunction<T[]> generator, Collection<? extends T> elements) {
+        return TypedArrayBuilder.of(generator, elements.size())
+                .addAll(elements)
+                .toArray();
+    }
+
 
 
 }
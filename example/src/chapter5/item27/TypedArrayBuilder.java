@@ -0,0 +1,163 @@
+package chapter5.item27;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntFunction;
+
+/**
+ * 원소를 모아서 T[]를 만드는 빌더. Item27Main.toArray처럼 Arrays.copyOf(elements, size, a.getClass())로
+ * 매번 리플렉션으로 배열을 만드는 대신, 배열 타입은 처음 한번만 정하고 그 뒤로는 같은 타입의 배열을 복사만 한다.
+ *
+ * - 배열은 항상 생성자(String[]::new 같은 IntFunction)로 만들고 System.arraycopy로 옮긴다. Arrays.copyOf(T[], int)도
+ *   내부에서 original.getClass()로 Array.newInstance를 부르므로 쓰지 않는다.
+ * - Class나 견본 배열을 주면 처음 한번만 배열 타입을 찾아 MethodHandles.arrayConstructor로 생성자를 만든다.
+ * - 용량은 1.5배씩 늘려서 add의 비용을 상각한다.
+ * - toArray는 크기가 꼭 맞으면 내부 배열을 복사 없이 넘겨준다. 그 뒤에 다시 쓰면 그때 복사한다.
+ */
+public final class TypedArrayBuilder<T> {
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private final IntFunction<T[]> generator;
+    private T[] elements;
+    private int size;
+    private boolean shared; // toArray로 넘겨준 배열이라 더 이상 고쳐 쓰면 안 된다
+
+    private TypedArrayBuilder(IntFunction<T[]> generator, int initialCapacity) {
+        this.generator = generator;
+        this.elements = generator.apply(initialCapacity);
+    }
+
+    public static <T> TypedArrayBuilder<T> of(IntFunction<T[]> generator) {
+        return of(generator, DEFAULT_CAPACITY);
+    }
+
+    public static <T> TypedArrayBuilder<T> of(IntFunction<T[]> generator, int initialCapacity) {
+        checkCapacity(initialCapacity);
+        return new TypedArrayBuilder<>(generator, initialCapacity);
+    }
+
+    public static <T> TypedArrayBuilder<T> of(Class<T> componentType) {
+        return of(componentType, DEFAULT_CAPACITY);
+    }
+
+    public static <T> TypedArrayBuilder<T> of(Class<T> componentType, int initialCapacity) {
+        checkCapacity(initialCapacity);
+        if (componentType.isPrimitive()) {
+            throw new IllegalArgumentException("primitive component type : " + componentType);
+        }
+        return new TypedArrayBuilder<>(arrayConstructor(Array.newInstance(componentType, 0).getClass()), initialCapacity);
+    }
+
+    // 주어진 배열과 같은 타입의 빈 배열로 시작한다. 견본 배열의 원소는 가져오지 않는다
+    public static <T> TypedArrayBuilder<T> like(T[] prototype) {
+        return new TypedArrayBuilder<>(arrayConstructor(prototype.getClass()), DEFAULT_CAPACITY);
+    }
+
+    // 배열 타입을 한번만 찾아서 만든 생성자. 호출할 때는 리플렉션 없이 MethodHandle만 부른다
+    @SuppressWarnings("unchecked")
+    private static <T> IntFunction<T[]> arrayConstructor(Class<?> arrayClass) {
+        MethodHandle constructor = MethodHandles.arrayConstructor(arrayClass)
+                .asType(MethodType.methodType(Object[].class, int.class));
+        return length -> {
+            try {
+                return (T[]) (Object[]) constructor.invokeExact(length);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    public TypedArrayBuilder<T> add(T element) {
+        if (size == elements.length || shared) {
+            reallocate(size + 1);
+        }
+        elements[size++] = element;
+        return this;
+    }
+
+    public TypedArrayBuilder<T> addAll(Collection<? extends T> c) {
+        if (size == 0 && !shared && c.size() <= elements.length) {
+            // 비어 있고 자리가 충분하면 컬렉션이 내부 배열에 바로 복사하게 한다. 중간 배열이 생기지 않는다
+            T[] filled = c.toArray(elements);
+            if (filled == elements) {
+                size = c.size();
+                return this;
+            }
+            elements = filled; // 그 사이 컬렉션이 커졌다면 새로 만든 배열을 돌려준다
+            size = filled.length;
+            return this;
+        }
+        Object[] source = c.toArray();
+        ensureCapacity(size + source.length);
+        System.arraycopy(source, 0, elements, size, source.length); // 타입이 맞지 않는 원소가 있으면 ArrayStoreException
+        size += source.length;
+        return this;
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("varargs") // source는 읽기만 한다
+    public final TypedArrayBuilder<T> addAll(T... source) {
+        ensureCapacity(size + source.length);
+        System.arraycopy(source, 0, elements, size, source.length);
+        size += source.length;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        if (shared) {
+            elements = generator.apply(0);
+            shared = false;
+        } else {
+            Arrays.fill(elements, 0, size, null);
+        }
+        size = 0;
+    }
+
+    // 크기가 꼭 맞는 배열. 호출할 때마다 새 배열이 필요하다면 clear 하거나 다시 add 하면 된다
+    public T[] toArray() {
+        if (size != elements.length) {
+            elements = copy(size);
+        }
+        shared = true;
+        return elements;
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > elements.length || shared) {
+            reallocate(minCapacity);
+        }
+    }
+
+    private void reallocate(int minCapacity) {
+        int length = elements.length;
+        int newCapacity = minCapacity <= length ? length : Math.max(minCapacity, length + (length >> 1) + 1);
+        if (newCapacity < 0) { // 오버플로
+            throw new OutOfMemoryError("Required array length " + minCapacity + " is too large");
+        }
+        elements = copy(newCapacity);
+        shared = false;
+    }
+
+    private T[] copy(int length) {
+        T[] copy = generator.apply(length);
+        System.arraycopy(elements, 0, copy, 0, Math.min(size, length));
+        return copy;
+    }
+
+    private static void checkCapacity(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity : " + initialCapacity);
+        }
+    }
+}
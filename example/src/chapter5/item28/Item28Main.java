@@ -4,6 +4,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 public class Item28Main {
 
@@ -56,4 +60,70 @@ public class Item28Main {
         }
     }
 
+    // ChooserV2처럼 비검사 형변환을 하지 않고도 T[]를 쓴다. 배열 생성자(String[]::new)로 정확한 타입의 배열을 만든다
+    public static class ChooserV4<T> {
+
+        private final T[] choiceArray;
+
+        public ChooserV4(Collection<? extends T> choices, IntFunction<T[]> generator) {
+            if (choices.isEmpty()) {
+                throw new IllegalArgumentException("choices is empty");
+            }
+            this.choiceArray = choices.toArray(generator);
+        }
+
+        public T choose() {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            return choiceArray[rnd.nextInt(choiceArray.length)];
+        }
+
+        public Stream<T> samples(long n) {
+            return ThreadLocalRandom.current().ints(n, 0, choiceArray.length).mapToObj(i -> choiceArray[i]);
+        }
+    }
+
+    // 기본 타입 전용. 생성할 때도 고를 때도 박싱이 일어나지 않는다
+    public static class IntChooser {
+
+        private final int[] choiceArray;
+
+        public IntChooser(int... choices) {
+            if (choices.length == 0) {
+                throw new IllegalArgumentException("choices is empty");
+            }
+            this.choiceArray = choices.clone();
+        }
+
+        public int choose() {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            return choiceArray[rnd.nextInt(choiceArray.length)];
+        }
+
+        // 병렬 스트림으로 돌려도 쓰레드마다 자신의 ThreadLocalRandom을 쓴다
+        public IntStream samples(long n) {
+            return ThreadLocalRandom.current().ints(n, 0, choiceArray.length).map(i -> choiceArray[i]);
+        }
+    }
+
+    public static class LongChooser {
+
+        private final long[] choiceArray;
+
+        public LongChooser(long... choices) {
+            if (choices.length == 0) {
+                throw new IllegalArgumentException("choices is empty");
+            }
+            this.choiceArray = choices.clone();
+        }
+
+        public long choose() {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            return choiceArray[rnd.nextInt(choiceArray.length)];
+        }
+
+        public LongStream samples(long n) {
+            return ThreadLocalRandom.current().ints(n, 0, choiceArray.length).mapToLong(i -> choiceArray[i]);
+        }
+    }
+
 }
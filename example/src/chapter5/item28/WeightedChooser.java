@@ -0,0 +1,129 @@
+package chapter5.item28;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ChooserV1~V3는 모든 원소를 같은 확률로 고른다. 이 클래스는 가중치에 비례해 고른다.
+ * 생성할 때 Walker/Vose의 별칭 테이블(alias table)을 한번 만들어두면, 원소가 수만 개여도
+ * 난수 두 개와 배열 조회 두 번(O(1))으로 고를 수 있고 고를 때 객체를 할당하지 않는다.
+ *
+ * 가중치를 바꿀 때는 새 테이블을 만든 뒤 volatile 필드를 한번에 바꿔 끼운다.
+ * 고르는 쪽은 락을 잡지 않으므로 갱신 중에도 멈추지 않고 이전 테이블이나 새 테이블 중 하나를 본다.
+ */
+public class WeightedChooser<T> {
+
+    private volatile AliasTable table;
+
+    public WeightedChooser(Map<? extends T, ? extends Number> weights) {
+        this.table = new AliasTable(weights);
+    }
+
+    public void updateWeights(Map<? extends T, ? extends Number> weights) {
+        this.table = new AliasTable(weights); // 테이블을 다 만든 뒤에 바꿔 끼운다
+    }
+
+    public T choose() {
+        return table.choose(ThreadLocalRandom.current());
+    }
+
+    // 한 테이블 기준으로 n개를 고른다. 도중에 가중치가 바뀌어도 결과가 섞이지 않는다
+    public List<T> chooseMany(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException(n + " < 0");
+        }
+        AliasTable current = table;
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        List<T> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(current.choose(rnd));
+        }
+        return result;
+    }
+
+    public int size() {
+        return table.choices.length;
+    }
+
+    private final class AliasTable {
+
+        private final Object[] choices; // T[]를 만들 수 없으므로 Object[]에 담고 꺼낼 때 형변환한다
+        private final double[] probability;
+        private final int[] alias;
+
+        AliasTable(Map<? extends T, ? extends Number> weights) {
+            int n = weights.size();
+            if (n == 0) {
+                throw new IllegalArgumentException("choices is empty");
+            }
+            choices = new Object[n];
+            probability = new double[n];
+            alias = new int[n];
+
+            double[] scaled = new double[n];
+            double max = 0;
+            int i = 0;
+            for (Map.Entry<? extends T, ? extends Number> entry : weights.entrySet()) {
+                double weight = entry.getValue().doubleValue();
+                if (!(weight >= 0) || Double.isInfinite(weight)) {
+                    throw new IllegalArgumentException("invalid weight : " + entry);
+                }
+                choices[i] = entry.getKey();
+                scaled[i] = weight;
+                max = Math.max(max, weight);
+                i++;
+            }
+            if (max <= 0) {
+                throw new IllegalArgumentException("sum of weights must be positive");
+            }
+
+            // 유한한 가중치도 더하면 Infinity가 될 수 있다. 가장 큰 가중치로 먼저 나눠 합이 n을 넘지 않게 한다
+            double sum = 0;
+            for (int j = 0; j < n; j++) {
+                scaled[j] /= max;
+                sum += scaled[j];
+            }
+
+            // Vose : 평균(1)보다 작은 칸은 큰 칸의 남는 확률을 빌려 채운다
+            int[] small = new int[n];
+            int[] large = new int[n];
+            int smallSize = 0;
+            int largeSize = 0;
+            for (int j = 0; j < n; j++) {
+                scaled[j] = scaled[j] * n / sum;
+                if (scaled[j] < 1.0) {
+                    small[smallSize++] = j;
+                } else {
+                    large[largeSize++] = j;
+                }
+            }
+            while (smallSize > 0 && largeSize > 0) {
+                int less = small[--smallSize];
+                int more = large[--largeSize];
+                probability[less] = scaled[less];
+                alias[less] = more;
+                scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+                if (scaled[more] < 1.0) {
+                    small[smallSize++] = more;
+                } else {
+                    large[largeSize++] = more;
+                }
+            }
+            // 부동소수점 오차로 남은 칸은 확률 1로 채운다
+            while (largeSize > 0) {
+                probability[large[--largeSize]] = 1.0;
+            }
+            while (smallSize > 0) {
+                probability[small[--smallSize]] = 1.0;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        T choose(ThreadLocalRandom rnd) {
+            int column = rnd.nextInt(choices.length);
+            return (T) (rnd.nextDouble() < probability[column] ? choices[column] : choices[alias[column]]);
+        }
+    }
+}
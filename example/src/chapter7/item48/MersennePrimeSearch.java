@@ -0,0 +1,231 @@
+package chapter7.item48;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import static java.math.BigInteger.ONE;
+
+/**
+ * Item48Main.primes()는 Stream.iterate 기반이라 parallel()로 나눌 수 없다.
+ * 이 클래스는 지수 공간을 구간으로 나눠 ForkJoinPool에서 동시에 찾고, 결과는 작은 순서대로 내보낸다.
+ *
+ * 1. 구간마다 분할 체(segmented sieve)로 소수인 지수 p만 남긴다. (2^p - 1이 소수이려면 p가 소수여야 한다)
+ * 2. 남은 지수마다 뤼카-레머 판정법을 따로 fork 한다.
+ * 3. 호출한 쓰레드는 구간을 순서대로 기다리며 결과를 내보낸다. 동시에 진행하는 구간 수는 병렬도의 두배로 제한한다.
+ *
+ * cancel()을 부르거나 시간 예산이 다 되면 진행 중인 판정을 멈추고, 그때까지 순서대로 확정된 결과만 남는다.
+ * 한번 cancel 한 인스턴스는 다시 쓸 수 없다.
+ */
+public class MersennePrimeSearch {
+
+    private static final int DEFAULT_RANGE_SIZE = 256;
+    private static final int CANCELLATION_CHECK_INTERVAL = 32;
+    private static final Duration MAX_BUDGET = Duration.ofNanos(Long.MAX_VALUE / 2); // nanoTime 차이 비교가 넘치지 않는 범위
+
+    private final ForkJoinPool pool;
+    private final int rangeSize;
+    private volatile boolean cancelled;
+
+    public MersennePrimeSearch() {
+        this(ForkJoinPool.commonPool(), DEFAULT_RANGE_SIZE);
+    }
+
+    public MersennePrimeSearch(ForkJoinPool pool, int rangeSize) {
+        if (rangeSize <= 0) {
+            throw new IllegalArgumentException(rangeSize + " <= 0");
+        }
+        this.pool = pool;
+        this.rangeSize = rangeSize;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public List<BigInteger> search(int count, Duration budget) {
+        List<BigInteger> result = new ArrayList<>();
+        search(count, budget, result::add);
+        return result;
+    }
+
+    // 메르센 소수를 작은 것부터 최대 count개 action에 넘기고, 넘긴 개수를 반환한다
+    public int search(int count, Duration budget, Consumer<BigInteger> action) {
+        if (count < 0) {
+            throw new IllegalArgumentException(count + " < 0");
+        }
+        Search search = new Search(System.nanoTime() + (budget.compareTo(MAX_BUDGET) > 0 ? MAX_BUDGET : budget).toNanos());
+        int window = Math.max(2, pool.getParallelism() * 2);
+        Deque<ForkJoinTask<List<Integer>>> inFlight = new ArrayDeque<>();
+        long nextStart = 2;
+        int emitted = 0;
+
+        try {
+            while (emitted < count && !cancelled) {
+                while (inFlight.size() < window && nextStart + rangeSize <= Integer.MAX_VALUE) {
+                    inFlight.add(pool.submit(new RangeTask((int) nextStart, (int) (nextStart + rangeSize), search)));
+                    nextStart += rangeSize;
+                }
+                ForkJoinTask<List<Integer>> head = inFlight.poll();
+                if (head == null) {
+                    break; // int 범위의 지수를 모두 살펴봤다
+                }
+                List<Integer> exponents = await(head, search.deadline);
+                if (exponents == null) {
+                    break;
+                }
+                for (int p : exponents) { // 앞 구간이 모두 끝났으므로 이 구간의 결과는 순서가 확정되었다
+                    action.accept(ONE.shiftLeft(p).subtract(ONE));
+                    if (++emitted == count) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            search.stopped = true; // cancel(true)는 이미 실행 중인 판정을 멈추지 못하므로 플래그로 멈춘다
+            for (ForkJoinTask<List<Integer>> task : inFlight) {
+                task.cancel(true);
+            }
+        }
+        return emitted;
+    }
+
+    private List<Integer> await(ForkJoinTask<List<Integer>> task, long deadline) {
+        try {
+            return task.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | CancellationException e) {
+            return null;
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException) {
+                return null;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void checkCancelled(Search search) {
+        if (cancelled || search.stopped || System.nanoTime() - search.deadline > 0) {
+            throw new CancellationException();
+        }
+    }
+
+    // search 호출 한번의 상태. 결과를 다 내보냈거나 예외로 끝나면 stopped가 켜져서 남은 작업이 멈춘다
+    private static final class Search {
+
+        private final long deadline;
+        private volatile boolean stopped;
+
+        Search(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    // [from, to) 구간에서 2^p - 1이 소수인 지수 p를 작은 순서대로 찾는다
+    private final class RangeTask extends RecursiveTask<List<Integer>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final Search search;
+
+        RangeTask(int from, int to, Search search) {
+            this.from = from;
+            this.to = to;
+            this.search = search;
+        }
+
+        @Override
+        protected List<Integer> compute() {
+            checkCancelled(search);
+            List<LucasLehmerTask> tests = new ArrayList<>();
+            BitSet composite = sieve(from, to);
+            for (int i = composite.nextClearBit(0); from + i < to; i = composite.nextClearBit(i + 1)) {
+                tests.add(new LucasLehmerTask(from + i, search));
+            }
+            invokeAll(tests);
+
+            List<Integer> exponents = new ArrayList<>();
+            for (LucasLehmerTask test : tests) {
+                if (test.join()) {
+                    exponents.add(test.p);
+                }
+            }
+            return exponents;
+        }
+    }
+
+    private final class LucasLehmerTask extends RecursiveTask<Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int p;
+        private final Search search;
+
+        LucasLehmerTask(int p, Search search) {
+            this.p = p;
+            this.search = search;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (p == 2) {
+                return true; // 2^2 - 1 = 3
+            }
+            BigInteger mersenne = ONE.shiftLeft(p).subtract(ONE);
+            BigInteger s = BigInteger.valueOf(4);
+            for (int i = 0; i < p - 2; i++) {
+                if (i % CANCELLATION_CHECK_INTERVAL == 0) {
+                    checkCancelled(search);
+                }
+                s = modMersenne(s.multiply(s).subtract(BigInteger.TWO), mersenne);
+            }
+            return s.signum() == 0;
+        }
+
+        // 2^p - 1로 나눈 나머지는 나눗셈 없이 하위 p비트와 나머지 비트를 더해 구한다
+        private BigInteger modMersenne(BigInteger x, BigInteger mersenne) {
+            while (x.bitLength() > p) {
+                x = x.and(mersenne).add(x.shiftRight(p));
+            }
+            return x.equals(mersenne) ? BigInteger.ZERO : x;
+        }
+    }
+
+    // [from, to) 구간의 분할 체. 반환한 BitSet에서 i번 비트가 꺼져 있으면 from + i는 소수다
+    static BitSet sieve(int from, int to) {
+        int length = to - from;
+        BitSet composite = new BitSet(length);
+        for (int i = 0; i < length && from + i < 2; i++) {
+            composite.set(i);
+        }
+        int limit = (int) Math.sqrt(to - 1.0);
+        BitSet smallComposite = new BitSet(limit + 1);
+        for (int q = 2; q <= limit; q = smallComposite.nextClearBit(q + 1)) {
+            for (long m = (long) q * q; m <= limit; m += q) {
+                smallComposite.set((int) m);
+            }
+            long start = Math.max((long) q * q, ((from + q - 1L) / q) * q);
+            for (long m = start; m < to; m += q) {
+                composite.set((int) (m - from));
+            }
+        }
+        return composite;
+    }
+}
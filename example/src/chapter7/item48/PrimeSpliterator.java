@@ -0,0 +1,287 @@
+package chapter7.item48;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Item48Main.primes()의 Stream.iterate는 앞 원소를 알아야 다음 원소를 만들 수 있어서 쪼갤 수 없다.
+ * 이 Spliterator는 수의 구간을 나눠 가지므로 trySplit으로 쪼갤 수 있고, 구간 안에서는 분할 체로 소수를 찾는다.
+ *
+ * 상한이 있는 구간은 절반씩 나눈다. 상한이 없는(무한) 스트림은 앞쪽에서 점점 커지는 크기의 구간을 떼어 준다.
+ * (절반으로 나누면 뒤쪽 절반이 2^62 근처부터 시작해 쓸모가 없다)
+ *
+ * 2^50 미만은 체로 거르고, 그 이상은 결정적 밀러-라빈 판정을 쓴다.
+ * long 범위를 넘어선 소수가 필요하면 bigPrimes()를 쓴다. long 범위까지는 같은 경로를 쓰고 그 뒤로만 BigInteger로 넘어간다.
+ */
+public class PrimeSpliterator implements Spliterator.OfLong {
+
+    private static final int SEGMENT_SIZE = 1 << 16;
+    private static final long SIEVE_LIMIT = 1L << 50;
+    private static final long INITIAL_BATCH = 1L << 12;
+    private static final long MAX_BATCH = 1L << 26;
+    private static final int[] SMALL_PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37};
+    private static final long[] MILLER_RABIN_BASES = {2, 325, 9375, 28178, 450775, 9780504, 1795265022}; // 64비트 전체에서 결정적
+    private static final int CHARACTERISTICS = ORDERED | DISTINCT | SORTED | NONNULL | IMMUTABLE;
+
+    private static volatile BasePrimes basePrimes = new BasePrimes(1, new int[0]);
+
+    private long next; // 다음에 살펴볼 수
+    private final long to; // 이 수는 포함하지 않는다
+    private final boolean unbounded;
+    private long batch = INITIAL_BATCH;
+
+    private final BitSet composite = new BitSet(SEGMENT_SIZE);
+    private long segmentStart;
+    private long segmentEnd; // segmentStart == segmentEnd 이면 체로 거른 구간이 없다
+
+    private PrimeSpliterator(long from, long to, boolean unbounded) {
+        this.next = Math.max(from, 2);
+        this.to = to;
+        this.unbounded = unbounded;
+    }
+
+    // 무한한 소수 스트림. 차례대로 2, 3, 5, 7, ...
+    public static LongStream primes() {
+        return StreamSupport.longStream(new PrimeSpliterator(2, Long.MAX_VALUE, true), false);
+    }
+
+    // [from, to) 구간의 소수 스트림
+    public static LongStream primes(long from, long to) {
+        if (from > to) {
+            throw new IllegalArgumentException(from + " > " + to);
+        }
+        return StreamSupport.longStream(new PrimeSpliterator(from, to, false), false);
+    }
+
+    // Item48Main.primes()를 대신할 수 있는 무한한 BigInteger 소수 스트림
+    public static Stream<BigInteger> bigPrimes() {
+        return StreamSupport.stream(new BigPrimeSpliterator(new PrimeSpliterator(2, Long.MAX_VALUE, true), true), false);
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        while (next < to) {
+            if (next >= SIEVE_LIMIT) {
+                long candidate = next;
+                next++;
+                if (isPrime(candidate)) {
+                    action.accept(candidate);
+                    return true;
+                }
+                continue;
+            }
+            if (next >= segmentEnd || next < segmentStart) {
+                sieveSegment(next, Math.min(Math.min(next + SEGMENT_SIZE, to), SIEVE_LIMIT));
+            }
+            long prime = segmentStart + composite.nextClearBit((int) (next - segmentStart));
+            if (prime >= segmentEnd) {
+                next = segmentEnd;
+                continue;
+            }
+            next = prime + 1;
+            action.accept(prime);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public OfLong trySplit() {
+        long remaining = to - next;
+        long prefixEnd;
+        if (unbounded) {
+            if (remaining <= batch) {
+                return null;
+            }
+            prefixEnd = next + batch;
+            batch = Math.min(batch << 1, MAX_BATCH);
+        } else {
+            if (remaining < 2L * SEGMENT_SIZE) {
+                return null; // 너무 작게 쪼개면 체를 준비하는 비용이 더 크다
+            }
+            prefixEnd = next + remaining / 2;
+        }
+        PrimeSpliterator prefix = new PrimeSpliterator(next, prefixEnd, false);
+        next = prefixEnd;
+        return prefix;
+    }
+
+    // 소수 정리(π(x) ≈ x / ln x)로 어림한다. 무한하면 Long.MAX_VALUE
+    @Override
+    public long estimateSize() {
+        if (unbounded) {
+            return Long.MAX_VALUE;
+        }
+        if (next >= to) {
+            return 0;
+        }
+        return (long) ((to - next) / Math.max(1.0, Math.log(to))) + 1;
+    }
+
+    @Override
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+
+    @Override
+    public Comparator<? super Long> getComparator() {
+        return null; // 자연 순서로 정렬되어 있다
+    }
+
+    private void sieveSegment(long from, long to) {
+        composite.clear();
+        segmentStart = from;
+        segmentEnd = to;
+        for (long n = from; n < Math.min(to, 2); n++) {
+            composite.set((int) (n - from));
+        }
+        int root = (int) Math.sqrt((double) (to - 1));
+        for (int q : basePrimesUpTo(root).primes) {
+            if (q > root) {
+                break;
+            }
+            long start = Math.max((long) q * q, ((from + q - 1) / q) * q);
+            for (long m = start; m < to; m += q) {
+                composite.set((int) (m - from));
+            }
+        }
+    }
+
+    private static BasePrimes basePrimesUpTo(int limit) {
+        BasePrimes current = basePrimes;
+        if (limit <= current.limit) {
+            return current;
+        }
+        synchronized (PrimeSpliterator.class) {
+            current = basePrimes;
+            if (limit <= current.limit) {
+                return current;
+            }
+            int newLimit = (int) Math.min(Integer.MAX_VALUE - 1L, Math.max(limit, current.limit * 2L));
+            BitSet sieve = new BitSet(newLimit + 1);
+            int count = 0;
+            int[] primes = new int[64];
+            for (int q = 2; q <= newLimit; q = sieve.nextClearBit(q + 1)) {
+                if (count == primes.length) {
+                    primes = Arrays.copyOf(primes, count * 2);
+                }
+                primes[count++] = q;
+                for (long m = (long) q * q; m <= newLimit; m += q) {
+                    sieve.set((int) m);
+                }
+            }
+            basePrimes = current = new BasePrimes(newLimit, Arrays.copyOf(primes, count));
+            return current;
+        }
+    }
+
+    // 체를 쓰기엔 너무 큰 수를 위한 결정적 밀러-라빈 판정
+    static boolean isPrime(long n) {
+        if (n < 2) {
+            return false;
+        }
+        for (int p : SMALL_PRIMES) {
+            if (n % p == 0) {
+                return n == p;
+            }
+        }
+        BigInteger bn = BigInteger.valueOf(n);
+        BigInteger nMinusOne = BigInteger.valueOf(n - 1);
+        int s = Long.numberOfTrailingZeros(n - 1);
+        BigInteger d = BigInteger.valueOf((n - 1) >> s);
+        for (long base : MILLER_RABIN_BASES) {
+            BigInteger a = BigInteger.valueOf(base).mod(bn);
+            if (a.signum() == 0) {
+                continue;
+            }
+            BigInteger x = a.modPow(d, bn);
+            if (x.equals(BigInteger.ONE) || x.equals(nMinusOne)) {
+                continue;
+            }
+            boolean witness = true;
+            for (int r = 1; r < s; r++) {
+                x = x.multiply(x).mod(bn);
+                if (x.equals(nMinusOne)) {
+                    witness = false;
+                    break;
+                }
+            }
+            if (witness) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 체에 쓰는 작은 소수들. 필요한 만큼 늘린 새 객체로 바꿔 끼우므로 여러 Spliterator가 함께 읽어도 된다
+    private static final class BasePrimes {
+
+        private final int limit;
+        private final int[] primes;
+
+        BasePrimes(int limit, int[] primes) {
+            this.limit = limit;
+            this.primes = primes;
+        }
+    }
+
+    // long 범위는 PrimeSpliterator로, 그 뒤로는 BigInteger.nextProbablePrime으로 이어간다
+    private static final class BigPrimeSpliterator extends Spliterators.AbstractSpliterator<BigInteger> {
+
+        private final PrimeSpliterator longPrimes;
+        private final boolean beyondLong;
+        private BigInteger nextBig;
+        private long current;
+
+        BigPrimeSpliterator(PrimeSpliterator longPrimes, boolean beyondLong) {
+            super(longPrimes.estimateSize(), CHARACTERISTICS);
+            this.longPrimes = longPrimes;
+            this.beyondLong = beyondLong;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super BigInteger> action) {
+            if (nextBig == null && longPrimes.tryAdvance((long p) -> current = p)) {
+                action.accept(BigInteger.valueOf(current));
+                return true;
+            }
+            if (!beyondLong) {
+                return false;
+            }
+            if (nextBig == null) {
+                nextBig = BigInteger.valueOf(Long.MAX_VALUE).nextProbablePrime();
+            }
+            action.accept(nextBig);
+            nextBig = nextBig.nextProbablePrime();
+            return true;
+        }
+
+        @Override
+        public Spliterator<BigInteger> trySplit() {
+            if (nextBig != null) {
+                return null; // long 범위를 넘어선 뒤로는 쪼갤 수 없다
+            }
+            OfLong prefix = longPrimes.trySplit();
+            return prefix == null ? null : new BigPrimeSpliterator((PrimeSpliterator) prefix, false);
+        }
+
+        @Override
+        public long estimateSize() {
+            return beyondLong ? Long.MAX_VALUE : longPrimes.estimateSize();
+        }
+
+        @Override
+        public Comparator<? super BigInteger> getComparator() {
+            return null;
+        }
+    }
+}
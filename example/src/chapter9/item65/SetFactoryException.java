@@ -0,0 +1,34 @@
+package chapter9.item65;
+
+/**
+ * SetFactoryRegistry가 클래스 이름으로 Set 생성 방법을 찾지 못했을 때 던진다. 원인은 reason으로 구분한다.
+ */
+public class SetFactoryException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Reason {
+        CLASS_NOT_FOUND,        // 클래스를 찾을 수 없습니다.
+        NOT_A_SET,              // Set을 구현하지 않은 클래스입니다.
+        NOT_INSTANTIABLE,       // 클래스를 인스턴스화할 수 없습니다. (인터페이스, 추상 클래스)
+        NO_DEFAULT_CONSTRUCTOR, // 매개변수 없는 생성자를 찾을 수 없습니다.
+        NOT_ACCESSIBLE          // 생성자에 접근할 수 없습니다.
+    }
+
+    private final String className;
+    private final Reason reason;
+
+    SetFactoryException(String className, Reason reason, Throwable cause) {
+        super(reason + " : " + className, cause);
+        this.className = className;
+        this.reason = reason;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
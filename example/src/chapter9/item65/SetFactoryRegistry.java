@@ -0,0 +1,153 @@
+package chapter9.item65;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 클래스 이름으로 Set<String> 구현체를 만드는 팩터리 레지스트리.
+ * reflection1처럼 매번 Class.forName과 Constructor.newInstance를 부르지 않고, 클래스마다 한번만 찾아서
+ * LambdaMetafactory로 만든 Supplier(HashSet::new와 같은 람다)를 캐시한다. 그 뒤의 호출은 일반 생성자 호출과 거의 같다.
+ *
+ * 레지스트리의 클래스 로더에서 보이지 않는 클래스(플러그인 로더 등)는 람다 대신 MethodHandle을 직접 부른다.
+ * 처음 찾을 때 인스턴스를 하나 만들어 보고, 성공한 Supplier만 캐시한다.
+ *
+ * 실패는 null로 삼키지 않고 원인별 SetFactoryException으로 알린다.
+ */
+public final class SetFactoryRegistry {
+
+    private static final MethodType SUPPLIER_TYPE = MethodType.methodType(Supplier.class);
+    private static final MethodType GET_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType SET_TYPE = MethodType.methodType(Set.class);
+
+    private final ConcurrentMap<String, Supplier<Set<String>>> suppliers = new ConcurrentHashMap<>();
+    private final ClassLoader classLoader;
+
+    public SetFactoryRegistry() {
+        this(SetFactoryRegistry.class.getClassLoader());
+    }
+
+    public SetFactoryRegistry(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    public Set<String> newSet(String className) throws SetFactoryException {
+        Supplier<Set<String>> supplier = suppliers.get(className);
+        if (supplier != null) {
+            return supplier.get();
+        }
+        Resolved resolved = resolve(className);
+        suppliers.putIfAbsent(className, resolved.supplier);
+        return resolved.first; // 확인용으로 만든 인스턴스를 그대로 돌려준다
+    }
+
+    // 한번 찾은 Supplier는 캐시한다. 실패한 이름은 캐시하지 않는다. 처음 찾을 때 만든 확인용 인스턴스는 버린다
+    public Supplier<Set<String>> supplier(String className) throws SetFactoryException {
+        Supplier<Set<String>> supplier = suppliers.get(className);
+        if (supplier != null) {
+            return supplier;
+        }
+        Supplier<Set<String>> resolved = resolve(className).supplier;
+        Supplier<Set<String>> previous = suppliers.putIfAbsent(className, resolved);
+        return previous != null ? previous : resolved;
+    }
+
+    public int size() {
+        return suppliers.size();
+    }
+
+    // 인스턴스를 한번 만들어 본 Supplier와 그 인스턴스
+    private static final class Resolved {
+
+        private final Supplier<Set<String>> supplier;
+        private final Set<String> first;
+
+        Resolved(Supplier<Set<String>> supplier) {
+            this.supplier = supplier;
+            this.first = supplier.get();
+        }
+    }
+
+    private Resolved resolve(String className) throws SetFactoryException {
+        Class<?> cl;
+        try {
+            cl = Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new SetFactoryException(className, SetFactoryException.Reason.CLASS_NOT_FOUND, e);
+        }
+        if (!Set.class.isAssignableFrom(cl)) {
+            throw new SetFactoryException(className, SetFactoryException.Reason.NOT_A_SET, null);
+        }
+        if (cl.isInterface() || Modifier.isAbstract(cl.getModifiers())) {
+            throw new SetFactoryException(className, SetFactoryException.Reason.NOT_INSTANTIABLE, null);
+        }
+
+        MethodHandle constructor;
+        try {
+            constructor = MethodHandles.publicLookup().findConstructor(cl, MethodType.methodType(void.class));
+        } catch (NoSuchMethodException e) {
+            throw new SetFactoryException(className, SetFactoryException.Reason.NO_DEFAULT_CONSTRUCTOR, e);
+        } catch (IllegalAccessException e) {
+            throw new SetFactoryException(className, SetFactoryException.Reason.NOT_ACCESSIBLE, e);
+        }
+
+        if (isVisible(cl)) {
+            Supplier<Set<String>> lambda = null;
+            try {
+                lambda = lambda(constructor, cl);
+            } catch (LambdaConversionException | RuntimeException e) {
+                // 람다를 만들 수 없다면 MethodHandle을 직접 부른다
+            }
+            if (lambda != null) {
+                try {
+                    return new Resolved(lambda);
+                } catch (NoClassDefFoundError e) {
+                    // 만들어진 람다 클래스에서 cl이 보이지 않는다. 아래에서 MethodHandle로 다시 해본다
+                }
+            }
+        }
+        return new Resolved(handle(constructor)); // 생성자가 던진 예외는 그대로 전파되고 캐시되지 않는다
+    }
+
+    // 람다 클래스는 이 레지스트리의 로더에 정의되므로, 그 로더에서 같은 클래스를 찾을 수 있어야 한다
+    private static boolean isVisible(Class<?> cl) {
+        try {
+            return Class.forName(cl.getName(), false, SetFactoryRegistry.class.getClassLoader()) == cl;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Set<String>> lambda(MethodHandle constructor, Class<?> cl) throws LambdaConversionException {
+        CallSite site = LambdaMetafactory.metafactory(MethodHandles.lookup(), "get", SUPPLIER_TYPE,
+                GET_TYPE, constructor, MethodType.methodType(cl));
+        try {
+            return (Supplier<Set<String>>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Set<String>> handle(MethodHandle constructor) {
+        MethodHandle typed = constructor.asType(SET_TYPE);
+        return () -> {
+            try {
+                return (Set<String>) typed.invokeExact();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e); // 생성자가 검사 예외를 던졌다
+            }
+        };
+    }
+}
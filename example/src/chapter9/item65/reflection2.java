@@ -0,0 +1,27 @@
+package chapter9.item65;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * reflection1을 SetFactoryRegistry로 바꾼 것. 잘못된 인자는 NPE 대신 원인과 함께 바로 알린다.
+ */
+public class reflection2 {
+
+    private static final SetFactoryRegistry REGISTRY = new SetFactoryRegistry();
+
+    public static void main(String[] args) {
+        Set<String> s;
+        try {
+            s = REGISTRY.newSet(args[0]); // 첫번째 인자로 클래스를 확정한다. 두번째 호출부터는 캐시된 Supplier를 쓴다
+        } catch (SetFactoryException e) {
+            System.err.println(e.getReason() + " : " + e.getClassName());
+            System.exit(1);
+            return;
+        }
+
+        s.addAll(Arrays.asList(args).subList(1, args.length)); // 나머지 인자를 모두 입력한다.
+        System.out.println(s);
+    }
+
+}
@@ -10,6 +10,7 @@ public class Item63Main {
 
         System.out.println(statement(itemNameList));
         System.out.println(statement2(itemNameList));
+        System.out.println(statement3(itemNameList));
     }
 
     public static String statement(List<String> itemNameList) {
@@ -31,4 +32,9 @@ public class Item63Main {
         return stringBuilder.toString();
     }
 
+    // 첫번째 순회로 정확한 길이를 구해 StringBuilder를 한번만 할당한다
+    public static String statement3(List<String> itemNameList) {
+        return StringAssembler.join(itemNameList);
+    }
+
 }
@@ -0,0 +1,231 @@
+package chpater9.item63;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Item63Main.statement2를 일반화한 문자열 조립 유틸리티.
+ * statement2는 size() * 100으로 크기를 짐작하지만, 여기서는 첫번째 순회에서 정확한 길이를 구해
+ * 버퍼를 한번만 할당하므로 채우는 도중에 늘어나며 복사되지 않는다.
+ * 다만 마지막에 String을 만들 때 한번 복사하고, Latin-1이 아닌 문자가 섞이면 StringBuilder가 UTF-16으로 바뀌며 한번 더 복사한다.
+ * 조각은 한번씩만 순회하므로 LinkedList처럼 RandomAccess가 아닌 리스트여도 O(n)이다.
+ *
+ * 결과가 String일 필요가 없다면 Writer나 ByteBuffer(UTF-8)에 바로 쓸 수 있다. 이때는 중간 String을 만들지 않는다.
+ * 조각이 아주 많다면 joinParallel로 각 조각을 정해진 위치에 병렬로 복사할 수 있다.
+ */
+public final class StringAssembler {
+
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private StringAssembler() {
+    }
+
+    public static String join(List<? extends CharSequence> parts) {
+        return join("", parts);
+    }
+
+    public static String join(CharSequence delimiter, List<? extends CharSequence> parts) {
+        StringBuilder sb = new StringBuilder(length(delimiter, parts)); // 정확한 크기이므로 늘어나며 복사되지 않는다
+        boolean first = true;
+        for (CharSequence part : parts) {
+            if (!first) {
+                sb.append(delimiter);
+            }
+            sb.append(part);
+            first = false;
+        }
+        return sb.toString();
+    }
+
+    // 조각마다 결과 배열에서의 시작 위치를 미리 구해두고 서로 다른 위치에 병렬로 복사한다. 결과 String을 만들 때 한번 더 복사한다
+    public static String joinParallel(CharSequence delimiter, List<? extends CharSequence> parts) {
+        if (parts.size() < PARALLEL_THRESHOLD) {
+            return join(delimiter, parts);
+        }
+        CharSequence[] array = parts.toArray(new CharSequence[0]); // 인덱스로 접근하므로 배열로 한번만 옮긴다
+        int size = array.length;
+        String delimiterString = delimiter.toString();
+        int[] offsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] = Math.addExact(offsets[i], array[i].length() + (i > 0 ? delimiterString.length() : 0));
+        }
+        char[] chars = new char[offsets[size]];
+        IntStream.range(0, size).parallel().forEach(i -> {
+            int offset = offsets[i];
+            if (i > 0) {
+                delimiterString.getChars(0, delimiterString.length(), chars, offset);
+                offset += delimiterString.length();
+            }
+            copy(array[i], chars, offset);
+        });
+        return new String(chars);
+    }
+
+    private static void copy(CharSequence part, char[] dst, int offset) {
+        if (part instanceof String) {
+            ((String) part).getChars(0, part.length(), dst, offset);
+            return;
+        }
+        for (int i = 0; i < part.length(); i++) {
+            dst[offset + i] = part.charAt(i);
+        }
+    }
+
+    // String을 만들지 않고 writer에 바로 쓴다. 버퍼링은 writer에 맡긴다
+    public static void writeTo(Writer writer, CharSequence delimiter, Iterable<? extends CharSequence> parts)
+            throws IOException {
+        boolean first = true;
+        for (CharSequence part : parts) {
+            if (!first) {
+                writer.append(delimiter);
+            }
+            writer.append(part);
+            first = false;
+        }
+    }
+
+    // 조각들을 UTF-8로 인코딩한 결과가 딱 맞는 크기의 ByteBuffer를 반환한다. (position 0, limit = 길이)
+    public static ByteBuffer toUtf8(CharSequence delimiter, List<? extends CharSequence> parts) {
+        ByteBuffer buffer = ByteBuffer.allocate(utf8Length(delimiter, parts));
+        writeUtf8(delimiter, parts, buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 조각들을 UTF-8로 인코딩해 buffer의 현재 위치부터 쓴다. 조각 경계에 걸친 서로게이트 쌍도 올바르게 인코딩하고,
+     * 짝이 없는 서로게이트는 String.getBytes처럼 '?'로 바꾼다. 자리가 모자라면 BufferOverflowException을 던진다.
+     */
+    public static void writeUtf8(CharSequence delimiter, Iterable<? extends CharSequence> parts, ByteBuffer buffer) {
+        Utf8Encoder encoder = new Utf8Encoder(buffer);
+        boolean first = true;
+        for (CharSequence part : parts) {
+            if (!first) {
+                encoder.encode(delimiter);
+            }
+            encoder.encode(part);
+            first = false;
+        }
+        encoder.finish();
+    }
+
+    // 조각 하나짜리 writeUtf8. List를 만들지 않는다
+    public static void writeUtf8(CharSequence cs, ByteBuffer buffer) {
+        Utf8Encoder encoder = new Utf8Encoder(buffer);
+        encoder.encode(cs);
+        encoder.finish();
+    }
+
+    public static int utf8Length(CharSequence cs) {
+        int n = cs.length();
+        long length = n;
+        for (int i = 0; i < n; i++) {
+            char c = cs.charAt(i);
+            if (c >= 0x800) {
+                // 서로게이트 쌍은 2 char -> 4 byte, 짝이 없는 서로게이트는 '?' 1 byte
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(cs.charAt(i + 1))) {
+                    length += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    length += 2;
+                }
+            } else if (c >= 0x80) {
+                length += 1;
+            }
+        }
+        return Math.toIntExact(length);
+    }
+
+    public static int length(CharSequence delimiter, List<? extends CharSequence> parts) {
+        long length = (long) delimiter.length() * Math.max(0, parts.size() - 1);
+        for (CharSequence part : parts) {
+            length += part.length();
+        }
+        return Math.toIntExact(length);
+    }
+
+    public static int utf8Length(CharSequence delimiter, Iterable<? extends CharSequence> parts) {
+        Utf8Encoder counter = new Utf8Encoder(null);
+        boolean first = true;
+        for (CharSequence part : parts) {
+            if (!first) {
+                counter.encode(delimiter);
+            }
+            counter.encode(part);
+            first = false;
+        }
+        counter.finish();
+        return Math.toIntExact(counter.length);
+    }
+
+    // out이 null이면 바이트 수만 센다
+    private static final class Utf8Encoder {
+
+        private final ByteBuffer out;
+        private char pendingHighSurrogate; // 앞 조각의 마지막 문자가 상위 서로게이트였다면 보관해둔다
+        private long length;
+
+        Utf8Encoder(ByteBuffer out) {
+            this.out = out;
+        }
+
+        void encode(CharSequence cs) {
+            int n = cs.length();
+            for (int i = 0; i < n; i++) {
+                char c = cs.charAt(i);
+                if (pendingHighSurrogate != 0) {
+                    char high = pendingHighSurrogate;
+                    pendingHighSurrogate = 0;
+                    if (Character.isLowSurrogate(c)) {
+                        writeCodePoint(Character.toCodePoint(high, c));
+                        continue;
+                    }
+                    write('?');
+                }
+                if (c < 0x80) {
+                    write(c);
+                } else if (c < 0x800) {
+                    write(0xC0 | (c >> 6));
+                    write(0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c)) {
+                    pendingHighSurrogate = c;
+                } else if (Character.isLowSurrogate(c)) {
+                    write('?');
+                } else {
+                    write(0xE0 | (c >> 12));
+                    write(0x80 | ((c >> 6) & 0x3F));
+                    write(0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        void finish() {
+            if (pendingHighSurrogate != 0) {
+                pendingHighSurrogate = 0;
+                write('?');
+            }
+        }
+
+        private void writeCodePoint(int codePoint) {
+            write(0xF0 | (codePoint >> 18));
+            write(0x80 | ((codePoint >> 12) & 0x3F));
+            write(0x80 | ((codePoint >> 6) & 0x3F));
+            write(0x80 | (codePoint & 0x3F));
+        }
+
+        private void write(int b) {
+            length++;
+            if (out == null) {
+                return;
+            }
+            if (!out.hasRemaining()) {
+                throw new BufferOverflowException();
+            }
+            out.put((byte) b);
+        }
+    }
+}